@@ -0,0 +1,78 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+//jdk.incubator.vector versions of the line loops in FreeSpaceKernel. It needs --add-modules jdk.incubator.vector for
+//javac and java, and is only used when asked for, see FreeSpaceKernel.loadVectorLines.
+//Every lane does the same operations in the same order as the scalar loops, and none of them are fused, so the
+//results are bit for bit the same. The boundaries left over after the last full vector go to the scalar loops.
+public class VectorFreeSpaceKernel implements FreeSpaceKernel.Lines {
+    static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    public void pointAgainstSegments(double ax, double ay, double[] sx, double[] sy, int from, int to, double epsilon, double[] result, int offset) {
+        double epsilonSquared = epsilon*epsilon;
+        double axSquared = ax*ax;
+        double aySquared = ay*ay;
+        int end = from + SPECIES.loopBound(to - from);
+        double[] pairs = new double[2 * SPECIES.length()];
+        for (int k = from; k < end; k += SPECIES.length()) {
+            DoubleVector startX = DoubleVector.fromArray(SPECIES, sx, k);
+            DoubleVector startY = DoubleVector.fromArray(SPECIES, sy, k);
+            DoubleVector xdiff = DoubleVector.fromArray(SPECIES, sx, k + 1).sub(startX);
+            DoubleVector ydiff = DoubleVector.fromArray(SPECIES, sy, k + 1).sub(startY);
+            DoubleVector divisor = xdiff.mul(xdiff).add(ydiff.mul(ydiff));
+            DoubleVector b = DoubleVector.broadcast(SPECIES, ax).sub(startX).mul(xdiff)
+                    .add(DoubleVector.broadcast(SPECIES, ay).sub(startY).mul(ydiff));
+            DoubleVector q = startX.mul(startX).add(startY.mul(startY)).add(axSquared).add(aySquared)
+                    .sub(startX.mul(2).mul(ax)).sub(startY.mul(2).mul(ay)).sub(epsilonSquared).mul(divisor);
+            store(b, q, divisor, pairs, result, offset + 2 * (k - from));
+        }
+        FreeSpaceKernel.checkDivisors(sx, sy, from, end);
+        FreeSpaceKernel.scalarPointAgainstSegments(ax, ay, sx, sy, end, to, epsilon, result, offset + 2 * (end - from));
+    }
+
+    public void segmentAgainstPoints(double[] sx, double[] sy, int s, double[] ax, double[] ay, int from, int to, double epsilon, double[] result, int offset) {
+        double startX = sx[s];
+        double startY = sy[s];
+        double xdiff = sx[s + 1] - startX;
+        double ydiff = sy[s + 1] - startY;
+        double divisor = xdiff*xdiff + ydiff*ydiff;
+        double startSquared = startX*startX + startY*startY;
+        double epsilonSquared = epsilon*epsilon;
+        DoubleVector divisors = DoubleVector.broadcast(SPECIES, divisor);
+        int end = from + SPECIES.loopBound(to - from);
+        double[] pairs = new double[2 * SPECIES.length()];
+        for (int k = from; k < end; k += SPECIES.length()) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, ax, k);
+            DoubleVector y = DoubleVector.fromArray(SPECIES, ay, k);
+            DoubleVector b = x.sub(startX).mul(xdiff).add(y.sub(startY).mul(ydiff));
+            DoubleVector q = DoubleVector.broadcast(SPECIES, startSquared).add(x.mul(x)).add(y.mul(y))
+                    .sub(x.mul(2*startX)).sub(y.mul(2*startY)).sub(epsilonSquared).mul(divisors);
+            store(b, q, divisors, pairs, result, offset + 2 * (k - from));
+        }
+        //checks the segment as well
+        FreeSpaceKernel.scalarSegmentAgainstPoints(sx, sy, s, ax, ay, end, to, epsilon, result, offset + 2 * (end - from));
+    }
+
+    //Same as FreeSpaceKernel.store, lane by lane. Blending in the constants keeps -0.0 and NaN as the ifs there do.
+    //The lanes go through pairs to be interleaved: a scatter store crashed C2 on JDK 17.
+    private static void store(DoubleVector b, DoubleVector q, DoubleVector divisor, double[] pairs, double[] result, int offset) {
+        DoubleVector root = b.mul(b).sub(q);
+        //all black
+        VectorMask<Double> black = root.compare(VectorOperators.LT, 0);
+        root = root.blend(0, black).sqrt();
+        DoubleVector t2 = b.add(root).div(divisor);
+        DoubleVector t1 = b.sub(root).div(divisor);
+        t1 = t1.blend(0, t1.compare(VectorOperators.LT, 0));
+        t2 = t2.blend(0, t2.compare(VectorOperators.LT, 0));
+        t1 = t1.blend(1, t1.compare(VectorOperators.GT, 1));
+        t2 = t2.blend(1, t2.compare(VectorOperators.GT, 1));
+        t1.blend(0, black).intoArray(pairs, 0);
+        t2.blend(0, black).intoArray(pairs, SPECIES.length());
+        for (int lane = 0; lane < SPECIES.length(); lane++) {
+            result[offset + 2 * lane] = pairs[lane];
+            result[offset + 2 * lane + 1] = pairs[SPECIES.length() + lane];
+        }
+    }
+}
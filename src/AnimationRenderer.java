@@ -0,0 +1,164 @@
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+//Renders the frames of a morph to numbered PNG files, without Swing, on any thread.
+//Frames are drawn in parallel on pool into a fixed set of images that are reused, and passed through a bounded queue
+//to writer threads that encode them. Only as many frames as there are images are in memory at once, and drawing
+//goes on while earlier frames are being written.
+//Every image comes with its own arrays for the points of the morph, so a frame allocates nothing of its own.
+public class AnimationRenderer {
+    //The polygon shown at fraction of the morph, from 0 (P) to 1 (Q), written into xs and ys.
+    //Called from several threads at once, each with its own arrays.
+    public interface Morph {
+        //number of points of the polygon at any fraction
+        int size();
+
+        void at(double fraction, double[] xs, double[] ys);
+    }
+
+    static final int DEFAULT_WRITERS = 2;
+
+    MorphPainter painter;
+    int width;
+    int height;
+    ForkJoinPool pool;
+    int writers;
+    int buffers;
+
+    //Frames are drawn on pool, or on the calling thread if it is null
+    public AnimationRenderer(MorphPainter painter, int width, int height, ForkJoinPool pool) {
+        this(painter, width, height, pool, DEFAULT_WRITERS);
+    }
+
+    public AnimationRenderer(MorphPainter painter, int width, int height, ForkJoinPool pool, int writers) {
+        this.painter = painter;
+        this.width = width;
+        this.height = height;
+        this.pool = pool;
+        this.writers = writers;
+        //enough for every drawing thread to start a frame while each writer is busy with one
+        this.buffers = (pool == null ? 1 : pool.getParallelism()) + writers;
+    }
+
+    //From 0 to 1 and back in steps of 0.01, added up the same way as the frames were always counted
+    static double[] pingPongFractions() {
+        ArrayList<Double> fractions = new ArrayList<Double>();
+        for (double i = 0.0; i <= 1.0; i += 0.01) {
+            fractions.add(i);
+        }
+        for (double i = 1.0; i >= 0.0; i -= 0.01) {
+            fractions.add(i);
+        }
+        double[] result = new double[fractions.size()];
+        for (int k = 0; k < result.length; k++) {
+            result[k] = fractions.get(k);
+        }
+        return result;
+    }
+
+    //Writes the frame at fractions[k] to prefix + k + ".png" for every k, returns the number of frames written.
+    //The first frame that can't be written ends the animation, and its exception is thrown from here.
+    public int render(final Morph morph, final double[] fractions, final String prefix) throws InterruptedException, IOException {
+        final ArrayBlockingQueue<Frame> free = new ArrayBlockingQueue<Frame>(buffers);
+        for (int k = 0; k < buffers; k++) {
+            free.add(new Frame(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), morph.size()));
+        }
+        //never blocks, there can't be more frames waiting than images
+        final ArrayBlockingQueue<Frame> drawn = new ArrayBlockingQueue<Frame>(buffers + writers);
+        final AtomicInteger written = new AtomicInteger();
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+
+        Thread[] writerThreads = new Thread[writers];
+        for (int w = 0; w < writers; w++) {
+            writerThreads[w] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        for (Frame frame = drawn.take(); frame != END; frame = drawn.take()) {
+                            //the image always goes back, or the drawing threads would wait for it forever
+                            try {
+                                if (failure.get() == null && ImageIO.write(frame.image, "png", new File(prefix + frame.index + ".png"))) {
+                                    written.incrementAndGet();
+                                }
+                            } catch (IOException e) {
+                                failure.compareAndSet(null, e);
+                            } catch (RuntimeException e) {
+                                failure.compareAndSet(null, e);
+                            } finally {
+                                free.put(frame);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }, "png-writer-" + w);
+            writerThreads[w].start();
+        }
+
+        try {
+            ColumnTask.forEach(pool, fractions.length, new ColumnTask.Body() {
+                public void column(int k) {
+                    if (failure.get() != null) {
+                        return;
+                    }
+                    try {
+                        Frame frame = free.take();
+                        frame.index = k;
+                        morph.at(fractions[k], frame.xs, frame.ys);
+                        Graphics2D g = frame.image.createGraphics();
+                        g.setColor(Color.white);
+                        g.fillRect(0, 0, width, height);
+                        painter.paint(g, width, height, frame.xs, frame.ys, frame.xs.length);
+                        g.dispose();
+                        drawn.put(frame);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while drawing frame " + k, e);
+                    }
+                }
+            });
+        } finally {
+            //one end marker per writer, they finish the frames queued before it
+            for (int w = 0; w < writers; w++) {
+                drawn.put(END);
+            }
+            for (Thread writer : writerThreads) {
+                writer.join();
+            }
+        }
+        Exception e = failure.get();
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        }
+        if (e != null) {
+            throw (RuntimeException) e;
+        }
+        return written.get();
+    }
+
+    //tells a writer to stop
+    private static final Frame END = new Frame(null, 0);
+
+    //An image and the points drawn into it, handed from drawing to writing and back.
+    //index is the frame it holds at the moment.
+    private static class Frame {
+        int index;
+        BufferedImage image;
+        double[] xs;
+        double[] ys;
+
+        Frame(BufferedImage image, int points) {
+            this.image = image;
+            this.xs = new double[points];
+            this.ys = new double[points];
+        }
+    }
+}
@@ -0,0 +1,92 @@
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.awt.*;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import javax.imageio.ImageIO;
+
+public class AnimationRendererTest {
+
+    @Test
+    public void testPingPongFractions() {
+        double[] fractions = AnimationRenderer.pingPongFractions();
+        Assert.assertEquals(200, fractions.length);
+        Assert.assertEquals(0.0, fractions[0]);
+        Assert.assertEquals(1.0, fractions[100]);
+    }
+
+    @Test
+    public void testRendersEveryFrame() throws Exception {
+        Point2D.Double[] polyP = {new Point2D.Double(-1, -1), new Point2D.Double(1, -1), new Point2D.Double(0, 1)};
+        Point2D.Double[] polyQ = {new Point2D.Double(-1, 1), new Point2D.Double(1, 1), new Point2D.Double(0, -1)};
+        //a horizontal segment that moves up from y = -1 to y = 1
+        AnimationRenderer.Morph morph = new AnimationRenderer.Morph() {
+            public int size() {
+                return 2;
+            }
+
+            public void at(double fraction, double[] xs, double[] ys) {
+                xs[0] = -1.5;
+                xs[1] = 1.5;
+                ys[0] = 2 * fraction - 1;
+                ys[1] = 2 * fraction - 1;
+            }
+        };
+
+        File directory = File.createTempFile("animation", "");
+        directory.delete();
+        directory.mkdir();
+        String prefix = new File(directory, "frame").getPath();
+        ForkJoinPool pool = new ForkJoinPool(3);
+        AnimationRenderer renderer = new AnimationRenderer(new MorphPainter(polyP, polyQ, null, null), 100, 100, pool, 2);
+        double[] fractions = {0, 0.25, 0.5, 0.75, 1, 0.5, 0};
+        Assert.assertEquals(fractions.length, renderer.render(morph, fractions, prefix));
+        pool.shutdown();
+
+        for (int k = 0; k < fractions.length; k++) {
+            BufferedImage frame = ImageIO.read(new File(prefix + k + ".png"));
+            Assert.assertEquals(100, frame.getWidth());
+            int y = MorphPainter.toScreenY(2 * fractions[k] - 1, 100);
+            //the morph is drawn 3 pixels wide, in green
+            Assert.assertEquals(Color.green.getRGB(), frame.getRGB(50, y));
+            Assert.assertEquals(Color.white.getRGB(), frame.getRGB(50, y < 50 ? y + 5 : y - 5));
+        }
+
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testWriterFailureEndsRender() throws Exception {
+        AnimationRenderer.Morph morph = new AnimationRenderer.Morph() {
+            public int size() {
+                return 2;
+            }
+
+            public void at(double fraction, double[] xs, double[] ys) {
+                xs[1] = 1;
+            }
+        };
+
+        //no such directory, so every write fails
+        File directory = File.createTempFile("animation", "");
+        directory.delete();
+        String prefix = new File(directory, "frame").getPath();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        AnimationRenderer renderer = new AnimationRenderer(new MorphPainter(new Point2D.Double[0], new Point2D.Double[0], null, null), 20, 20, pool, 1);
+        try {
+            renderer.render(morph, AnimationRenderer.pingPongFractions(), prefix);
+            Assert.fail();
+        } catch (IOException e) {
+            //the first failed write
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -3,40 +3,72 @@ import java.util.ArrayList;
 
 //TODO: check for null for all arguments of constructors before setting
 
+//Arrows are never changed after they are built. A merged arrow shares its parts with the arrows it was made of,
+//so building one costs the same no matter how many merges are behind it.
+//The intervals and subarrows handed to an arrow must not be changed afterwards either, the hash is computed once from them.
 public class Arrow {
-    ArrayList<Arrow> subArrows;
-    Interval start;
-    Interval end;
+    final ArrayList<Arrow> subArrows;
+    final Interval start;
+    final Interval end;
 
-    public Arrow() {
-        this.start = new Interval();
-        this.end = new Interval();
-        this.subArrows = new ArrayList<Arrow>();
-    }
+    //subarrows hash from their own cached value, so this only looks at one level of the tree
+    private final int hash;
 
-    public Arrow(Arrow other) {
-        this.start = new Interval(other.start);
-        this.end = new Interval(other.end);
-        this.subArrows = new ArrayList<Arrow>();
-        if (other.subArrows != null && other.subArrows.size() > 0) {
-            //this.subArrows = new ArrayList<Arrow>(other.subArrows);
-            //deep copy
-            for (Arrow sub : other.subArrows) {
-                this.subArrows.add(new Arrow(sub));
-            }
-        }
+    //Leaves of the subarrow tree, and whether the breakpoints pathFromArrow takes from neighbouring leaves are apart
+    //(see DominancePruner). Worked out from the values of the subarrows, one level of the tree, like the hash.
+    final int leafCount;
+    final boolean distinctBreakpoints;
+    //breakpoints of the first and the last leaf, null for a null leaf
+    final Point2D.Double firstBreakpoint;
+    final Point2D.Double lastBreakpoint;
+
+    public Arrow() {
+        this(new Interval(), new Interval());
     }
 
     public Arrow(Interval _start, Interval _end) {
-        this.start = _start;
-        this.end = _end;
-        this.subArrows = new ArrayList<Arrow>();
+        this(_start, _end, new ArrayList<Arrow>());
     }
 
+    //_subs is kept, not copied, and must not be changed afterwards
     public Arrow(Interval _start, Interval _end, ArrayList<Arrow> _subs) {
         this.start = _start;
         this.end = _end;
         this.subArrows = _subs;
+
+        int result = _subs != null ? _subs.hashCode() : 0;
+        result = 31 * result + (_start != null ? _start.hashCode() : 0);
+        result = 31 * result + (_end != null ? _end.hashCode() : 0);
+        this.hash = result;
+
+        if (_subs == null || _subs.isEmpty()) {
+            Point2D.Double breakpoint = isNull() ? null : _end.isVertical() ? _end.startGraph : _end.endGraph;
+            this.leafCount = 1;
+            this.distinctBreakpoints = breakpoint != null;
+            this.firstBreakpoint = breakpoint;
+            this.lastBreakpoint = breakpoint;
+        } else {
+            int leaves = 0;
+            boolean distinct = true;
+            for (int k = 0; k < _subs.size(); k++) {
+                Arrow sub = _subs.get(k);
+                leaves += sub.leafCount;
+                distinct = distinct && sub.distinctBreakpoints && (k == 0 || !sub.firstBreakpoint.equals(_subs.get(k - 1).lastBreakpoint));
+            }
+            this.leafCount = leaves;
+            this.distinctBreakpoints = distinct;
+            this.firstBreakpoint = _subs.get(0).firstBreakpoint;
+            this.lastBreakpoint = _subs.get(_subs.size() - 1).lastBreakpoint;
+        }
+    }
+
+    //Same subarrows, different start. The intervals of an arrow are never changed either, so they are shared as well.
+    public Arrow withStart(Interval _start) {
+        return new Arrow(_start, this.end, this.subArrows);
+    }
+
+    public Arrow withEnd(Interval _end) {
+        return new Arrow(this.start, _end, this.subArrows);
     }
 
     public boolean isNull() {
@@ -57,6 +89,8 @@ public class Arrow {
 
         Arrow arrow = (Arrow) o;
 
+        //different hashes settle most comparisons without walking the subarrows
+        if (hash != arrow.hash) return false;
         if (end != null ? !end.equals(arrow.end) : arrow.end != null) return false;
         if (start != null ? !start.equals(arrow.start) : arrow.start != null) return false;
         if (subArrows != null ? !subArrows.equals(arrow.subArrows) : arrow.subArrows != null) return false;
@@ -66,9 +100,6 @@ public class Arrow {
 
     @Override
     public int hashCode() {
-        int result = subArrows != null ? subArrows.hashCode() : 0;
-        result = 31 * result + (start != null ? start.hashCode() : 0);
-        result = 31 * result + (end != null ? end.hashCode() : 0);
-        return result;
+        return hash;
     }
 }
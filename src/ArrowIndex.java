@@ -0,0 +1,141 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+
+//Static interval tree over the end intervals of a set of arrows, used to find the arrows a start interval connects to.
+//Matches what Interval.intersects does: vertical and horizontal ends are kept apart and only the
+//varying coordinate of an interval is compared, the fixed one is ignored.
+//Each orientation is an array sorted by the interval's low end, seen as an implicit balanced tree
+//(the middle of a range is its root) in which every node knows the largest high end of its subtree.
+public class ArrowIndex {
+    Arrow[] arrows;
+
+    //position of the arrow in the collection it was built from
+    int[] vOrder;
+    double[] vLow;
+    double[] vHigh;
+    double[] vMaxHigh;
+
+    int[] hOrder;
+    double[] hLow;
+    double[] hHigh;
+    double[] hMaxHigh;
+
+    //null arrows are left out, like the joining loop in mergeCells skips them
+    public ArrowIndex(Collection<Arrow> arrows) {
+        this.arrows = arrows.toArray(new Arrow[arrows.size()]);
+        ArrayList<Integer> vertical = new ArrayList<Integer>();
+        ArrayList<Integer> horizontal = new ArrayList<Integer>();
+        for (int k = 0; k < this.arrows.length; k++) {
+            Arrow arrow = this.arrows[k];
+            if (arrow.isNull()) {
+                continue;
+            }
+            if (arrow.end.isVertical()) {
+                vertical.add(k);
+            } else {
+                horizontal.add(k);
+            }
+        }
+        vOrder = sortByLow(vertical, true);
+        vLow = new double[vOrder.length];
+        vHigh = new double[vOrder.length];
+        fill(vOrder, true, vLow, vHigh);
+        vMaxHigh = new double[vOrder.length];
+        buildMaxHigh(vHigh, vMaxHigh, 0, vOrder.length);
+
+        hOrder = sortByLow(horizontal, false);
+        hLow = new double[hOrder.length];
+        hHigh = new double[hOrder.length];
+        fill(hOrder, false, hLow, hHigh);
+        hMaxHigh = new double[hOrder.length];
+        buildMaxHigh(hHigh, hMaxHigh, 0, hOrder.length);
+    }
+
+    private int[] sortByLow(ArrayList<Integer> positions, final boolean vertical) {
+        Integer[] sorted = positions.toArray(new Integer[positions.size()]);
+        Arrays.sort(sorted, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return Double.compare(low(arrows[a].end, vertical), low(arrows[b].end, vertical));
+            }
+        });
+        int[] order = new int[sorted.length];
+        for (int k = 0; k < sorted.length; k++) {
+            order[k] = sorted[k];
+        }
+        return order;
+    }
+
+    private void fill(int[] order, boolean vertical, double[] low, double[] high) {
+        for (int k = 0; k < order.length; k++) {
+            low[k] = low(arrows[order[k]].end, vertical);
+            high[k] = high(arrows[order[k]].end, vertical);
+        }
+    }
+
+    private static double low(Interval interval, boolean vertical) {
+        return vertical ? interval.startGraph.y : interval.startGraph.x;
+    }
+
+    private static double high(Interval interval, boolean vertical) {
+        return vertical ? interval.endGraph.y : interval.endGraph.x;
+    }
+
+    private static double buildMaxHigh(double[] high, double[] maxHigh, int from, int to) {
+        if (from >= to) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        int middle = (from + to) >>> 1;
+        double max = high[middle];
+        max = Math.max(max, buildMaxHigh(high, maxHigh, from, middle));
+        max = Math.max(max, buildMaxHigh(high, maxHigh, middle + 1, to));
+        maxHigh[middle] = max;
+        return max;
+    }
+
+    public int size() {
+        return vOrder.length + hOrder.length;
+    }
+
+    //Adds the arrows whose end intersects the interval to result, in the order of the collection the index was built from.
+    public void collect(Interval interval, ArrayList<Arrow> result) {
+        if (interval == null || interval.startGraph == null || interval.endGraph == null) {
+            return;
+        }
+        boolean vertical = interval.isVertical();
+        ArrayList<Integer> positions = new ArrayList<Integer>();
+        if (vertical) {
+            query(vOrder, vLow, vHigh, vMaxHigh, 0, vOrder.length, interval.startGraph.y, interval.endGraph.y, positions);
+        } else {
+            query(hOrder, hLow, hHigh, hMaxHigh, 0, hOrder.length, interval.startGraph.x, interval.endGraph.x, positions);
+        }
+        Collections.sort(positions);
+        for (Integer position : positions) {
+            result.add(arrows[position]);
+        }
+    }
+
+    //same condition as Interval.intersects: low <= queryHigh && queryLow <= high
+    private static void query(int[] order, double[] low, double[] high, double[] maxHigh, int from, int to,
+                              double queryLow, double queryHigh, ArrayList<Integer> positions) {
+        if (from >= to) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        if (maxHigh[middle] < queryLow) {
+            //nothing in this subtree reaches the query
+            return;
+        }
+        query(order, low, high, maxHigh, from, middle, queryLow, queryHigh, positions);
+        if (low[middle] > queryHigh) {
+            //everything to the right starts after the query ends
+            return;
+        }
+        if (queryLow <= high[middle]) {
+            positions.add(order[middle]);
+        }
+        query(order, low, high, maxHigh, middle + 1, to, queryLow, queryHigh, positions);
+    }
+}
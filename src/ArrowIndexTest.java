@@ -0,0 +1,65 @@
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class ArrowIndexTest {
+
+    private Interval randomInterval(Random random, boolean vertical) {
+        double fixed = random.nextInt(4);
+        double low = 10 * random.nextDouble();
+        double high = low + 2 * random.nextDouble();
+        if (vertical) {
+            return new Interval(new Point2D.Double(fixed, low), new Point2D.Double(fixed, high));
+        }
+        return new Interval(new Point2D.Double(low, fixed), new Point2D.Double(high, fixed));
+    }
+
+    @Test
+    public void testCollectMatchesIntersects() throws Exception {
+        Random random = new Random(5);
+        Set<Arrow> arrows = new LinkedHashSet<Arrow>();
+        for (int k = 0; k < 300; k++) {
+            arrows.add(new Arrow(randomInterval(random, random.nextBoolean()), randomInterval(random, random.nextBoolean())));
+        }
+        //null arrows are never returned
+        arrows.add(new Arrow());
+        ArrowIndex index = new ArrowIndex(arrows);
+        Assert.assertEquals(300, index.size());
+
+        for (int k = 0; k < 200; k++) {
+            Interval query = randomInterval(random, random.nextBoolean());
+            ArrayList<Arrow> expected = new ArrayList<Arrow>();
+            for (Arrow arrow : arrows) {
+                if (!arrow.isNull() && query.intersects(arrow.end)) {
+                    expected.add(arrow);
+                }
+            }
+            ArrayList<Arrow> found = new ArrayList<Arrow>();
+            index.collect(query, found);
+            Assert.assertEquals(expected, found);
+        }
+    }
+
+    @Test
+    public void testTouchingEnds() throws Exception {
+        //intersects treats touching intervals as overlapping, so the index has to as well
+        Set<Arrow> arrows = new LinkedHashSet<Arrow>();
+        Interval start = new Interval(new Point2D.Double(0, 0), new Point2D.Double(0, 1));
+        arrows.add(new Arrow(start, new Interval(new Point2D.Double(0, 1), new Point2D.Double(1, 1))));
+        arrows.add(new Arrow(start, new Interval(new Point2D.Double(2, 1), new Point2D.Double(3, 1))));
+        ArrowIndex index = new ArrowIndex(arrows);
+
+        ArrayList<Arrow> found = new ArrayList<Arrow>();
+        index.collect(new Interval(new Point2D.Double(1, 1), new Point2D.Double(2, 1)), found);
+        Assert.assertEquals(2, found.size());
+
+        found.clear();
+        index.collect(new Interval(new Point2D.Double(1, 0), new Point2D.Double(1, 1)), found);
+        Assert.assertEquals(0, found.size());
+    }
+}
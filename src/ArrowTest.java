@@ -0,0 +1,69 @@
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+
+public class ArrowTest {
+
+    private Interval horizontal(double y, double low, double high) {
+        return new Interval(new Point2D.Double(low, y), new Point2D.Double(high, y));
+    }
+
+    private Arrow merged(double middleLow, double middleHigh) {
+        Arrow bottom = new Arrow(horizontal(0, 0.2, 0.5), horizontal(1, 0.3, 0.6));
+        Arrow top = new Arrow(horizontal(1, 0.1, 0.7), horizontal(2, 0.4, 0.9));
+        Interval middle = horizontal(1, middleLow, middleHigh);
+        ArrayList<Arrow> parts = new ArrayList<Arrow>();
+        parts.add(top.withStart(middle));
+        parts.add(bottom.withEnd(middle));
+        return new Arrow(bottom.start, top.end, parts);
+    }
+
+    @Test
+    public void testEqualTreesAreEqual() throws Exception {
+        Arrow first = merged(0.3, 0.6);
+        Arrow second = merged(0.3, 0.6);
+
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    @Test
+    public void testSubArrowsTakePart() throws Exception {
+        Arrow first = merged(0.3, 0.6);
+        Arrow second = merged(0.3, 0.5);
+
+        //same outer intervals, the difference is only in the subarrows
+        Assert.assertEquals(first.start, second.start);
+        Assert.assertEquals(first.end, second.end);
+        Assert.assertFalse(first.equals(second));
+        Assert.assertFalse(first.equals(new Arrow(first.start, first.end)));
+    }
+
+    @Test
+    public void testPartsAreShared() throws Exception {
+        Arrow arrow = merged(0.3, 0.6);
+        Arrow part = arrow.subArrows.get(0);
+
+        Assert.assertSame(part.subArrows, part.withEnd(horizontal(2, 0.5, 0.8)).subArrows);
+    }
+
+    @Test
+    public void testBreakpointsFromSubArrows() throws Exception {
+        Arrow arrow = merged(0.3, 0.6);
+        Assert.assertEquals(2, arrow.leafCount);
+        Assert.assertTrue(arrow.distinctBreakpoints);
+        //the top part comes first, its end is on a horizontal side, so the right end is its breakpoint
+        Assert.assertEquals(new Point2D.Double(0.9, 2), arrow.firstBreakpoint);
+        Assert.assertEquals(new Point2D.Double(0.6, 1), arrow.lastBreakpoint);
+
+        //a null leaf has no breakpoint
+        ArrayList<Arrow> parts = new ArrayList<Arrow>();
+        parts.add(arrow);
+        parts.add(new Arrow());
+        Arrow withNull = new Arrow(arrow.start, arrow.end, parts);
+        Assert.assertEquals(3, withNull.leafCount);
+        Assert.assertFalse(withNull.distinctBreakpoints);
+    }
+}
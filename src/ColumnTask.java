@@ -0,0 +1,43 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//Runs independent work for a range of columns of the diagram, either on the calling thread or split over a ForkJoinPool.
+//Every column is handled by exactly one task, so the result does not depend on how the tasks are scheduled.
+public class ColumnTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    interface Body {
+        void column(int i);
+    }
+
+    Body body;
+    int from;
+    int to;
+
+    ColumnTask(Body body, int from, int to) {
+        this.body = body;
+        this.from = from;
+        this.to = to;
+    }
+
+    //runs body for columns 0 to count - 1, sequentially if pool is null
+    static void forEach(ForkJoinPool pool, int count, Body body) {
+        if (pool == null || count < 2) {
+            for (int i = 0; i < count; i++) {
+                body.column(i);
+            }
+            return;
+        }
+        pool.invoke(new ColumnTask(body, 0, count));
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from == 1) {
+            body.column(from);
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        invokeAll(new ColumnTask(body, from, middle), new ColumnTask(body, middle, to));
+    }
+}
@@ -0,0 +1,239 @@
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+
+//Exact critical epsilon, found by searching the values of epsilon at which the free space changes (Alt and Godau).
+//The Frechet distance is always one of:
+// - the distance of a vertex of one polygon to an edge of the other, where a cell boundary opens up
+// - the distance at which two vertices of one polygon are equally far from a point on an edge of the other,
+//   where a path first gets through the free space monotonically
+//Reachability only grows with epsilon, so the smallest reachable candidate is found by a binary search with one
+//decision per step.
+//
+//There are O(nm) vertex-edge values but O(n^2 m + m^2 n) monotonicity values. The search therefore runs on the
+//vertex-edge values first, and only the monotonicity values between the two vertex-edge values it ends up with
+//are collected and searched.
+public class CriticalValues {
+
+    //At a critical value a free interval shrinks to a single point, which rounding can close again.
+    //Every candidate is decided a tiny bit above its value.
+    static final double SLACK = 1e-9;
+
+    double[] px;
+    double[] py;
+    double[] qx;
+    double[] qy;
+    Point2D.Double[] polyP;
+    Point2D.Double[] polyQ;
+    PreparedPolygon preparedP;
+    PreparedPolygon preparedQ;
+
+    //the free space at every candidate is sliced out of this, the geometry is only computed once
+    FreeSpaceGeometry geometry;
+
+    //number of reachability structures built so far
+    int decisions;
+    //false if the last search found no candidate reachable, see criticalEpsilon
+    boolean foundReachable;
+
+    public CriticalValues(Point2D.Double[] polyP, Point2D.Double[] polyQ) {
+        this(new PreparedPolygon(polyP), new PreparedPolygon(polyQ));
+    }
+
+    //Same as above, sharing what only depends on one polygon with every other search and structure given the same
+    public CriticalValues(PreparedPolygon preparedP, PreparedPolygon preparedQ) {
+        this.preparedP = preparedP;
+        this.preparedQ = preparedQ;
+        polyP = preparedP.poly;
+        polyQ = preparedQ.poly;
+        px = new double[polyP.length];
+        py = new double[polyP.length];
+        qx = new double[polyQ.length];
+        qy = new double[polyQ.length];
+        FreeSpaceKernel.copyCoordinates(polyP, px, py);
+        FreeSpaceKernel.copyCoordinates(polyQ, qx, qy);
+        geometry = ReachabilityStructure.geometryFor(preparedP, polyQ, null);
+    }
+
+    public int getDecisions() {
+        return decisions;
+    }
+
+    public boolean foundReachable() {
+        return foundReachable;
+    }
+
+    public double criticalEpsilon() {
+        return criticalEpsilon(0, Double.POSITIVE_INFINITY);
+    }
+
+    //Same as above, with the bounds narrowing the search. See FrechetBounds.
+    public double criticalEpsilon(FrechetBound... bounds) {
+        return criticalEpsilon(FrechetBounds.lower(polyP, polyQ, bounds), FrechetBounds.upper(polyP, polyQ, bounds));
+    }
+
+    //Same as above, for a distance known to lie in [lower, upper].
+    //The bounds are for the Frechet distance, and a structure can need a little more than that to report a path
+    //(see possiblePaths). So if nothing up to upper is reachable the search carries on above it.
+    //If nothing is reachable at all the largest candidate is returned, and foundReachable is false.
+    public double criticalEpsilon(double lower, double upper) {
+        foundReachable = true;
+        double[] vertexEdge = vertexEdgeValues();
+        //the lower bound can be one of the candidates itself, computed slightly differently
+        int from = firstAbove(vertexEdge, lower * (1 - SLACK) - SLACK);
+        int to = firstAbove(vertexEdge, upper);
+        int index = firstReachable(vertexEdge, from, to);
+        if (index == to) {
+            index = firstReachable(vertexEdge, to, vertexEdge.length);
+        }
+        if (index == vertexEdge.length) {
+            //rounding kept even the largest candidate closed
+            foundReachable = false;
+            return vertexEdge[vertexEdge.length - 1];
+        }
+
+        //the answer is in (below, vertexEdge[index]], a monotonicity value if any of them in there is reachable
+        double below = index > from ? vertexEdge[index - 1] : Math.min(lower, vertexEdge[index]);
+        double[] monotonicity = monotonicityValues(below, vertexEdge[index]);
+        int monotonicityIndex = firstReachable(monotonicity, 0, monotonicity.length);
+        if (monotonicityIndex < monotonicity.length) {
+            return monotonicity[monotonicityIndex];
+        }
+        return vertexEdge[index];
+    }
+
+    //Index of the smallest reachable value of the sorted candidates from to to, to if there is none
+    int firstReachable(double[] candidates, int from, int to) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (isReachable(candidates[middle])) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    boolean isReachable(double epsilon) {
+        decisions++;
+        return new ReachabilityStructure(preparedP, preparedQ, decidedAt(epsilon), null, null, geometry).isReachable();
+    }
+
+    //The epsilon a candidate is actually decided at, also the one to build the final structure with
+    static double decidedAt(double epsilon) {
+        return epsilon * (1 + SLACK) + SLACK;
+    }
+
+    //Distances of every vertex to every edge of the other polygon, plus the largest vertex to vertex distance.
+    //At that last one the whole diagram is free, so it is always reachable.
+    double[] vertexEdgeValues() {
+        int n = px.length;
+        int m = qx.length;
+        double[] values = new double[2 * n * m + 1];
+        int count = 0;
+        double largest = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                values[count++] = pointSegmentDistance(px[i], py[i], qx, qy, j);
+                values[count++] = pointSegmentDistance(qx[j], qy[j], px, py, i);
+                double dx = px[i] - qx[j];
+                double dy = py[i] - qy[j];
+                largest = Math.max(largest, dx*dx + dy*dy);
+            }
+        }
+        values[count++] = Math.sqrt(largest);
+        return sortedDistinct(values, count);
+    }
+
+    //Monotonicity values in (lower, upper]: for two vertices of one polygon and an edge of the other,
+    //the distance of the point on the edge that is equally far from both vertices
+    double[] monotonicityValues(double lower, double upper) {
+        double[] values = new double[16];
+        int count = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            double[] ax = pass == 0 ? px : qx;
+            double[] ay = pass == 0 ? py : qy;
+            double[] sx = pass == 0 ? qx : px;
+            double[] sy = pass == 0 ? qy : py;
+            for (int k = 0; k < ax.length; k++) {
+                for (int l = k + 1; l < ax.length; l++) {
+                    for (int s = 0; s < sx.length; s++) {
+                        double value = equidistance(ax[k], ay[k], ax[l], ay[l], sx, sy, s);
+                        if (value > lower && value <= upper) {
+                            if (count == values.length) {
+                                values = Arrays.copyOf(values, 2 * count);
+                            }
+                            values[count++] = value;
+                        }
+                    }
+                }
+            }
+        }
+        return sortedDistinct(values, count);
+    }
+
+    //Distance from (ax, ay) to the edge s -> s+1 of the closed polygon (sx, sy)
+    static double pointSegmentDistance(double ax, double ay, double[] sx, double[] sy, int s) {
+        int e = (s + 1) % sx.length;
+        double xdiff = sx[e] - sx[s];
+        double ydiff = sy[e] - sy[s];
+        double divisor = xdiff*xdiff + ydiff*ydiff;
+        double t = divisor == 0 ? 0 : ((ax - sx[s])*xdiff + (ay - sy[s])*ydiff) / divisor;
+        if (t < 0) t = 0;
+        if (t > 1) t = 1;
+        double dx = sx[s] + t*xdiff - ax;
+        double dy = sy[s] + t*ydiff - ay;
+        return Math.sqrt(dx*dx + dy*dy);
+    }
+
+    //Distance from a to the point of the edge s -> s+1 that is as far from a as from b, NaN if the
+    //bisector of a and b misses the edge
+    static double equidistance(double ax, double ay, double bx, double by, double[] sx, double[] sy, int s) {
+        int e = (s + 1) % sx.length;
+        double xdiff = sx[e] - sx[s];
+        double ydiff = sy[e] - sy[s];
+        //|start + t*diff - a|^2 = |start + t*diff - b|^2 is linear in t
+        double divisor = 2 * (xdiff*(bx - ax) + ydiff*(by - ay));
+        if (divisor == 0) {
+            return Double.NaN;
+        }
+        double toA = (sx[s] - ax)*(sx[s] - ax) + (sy[s] - ay)*(sy[s] - ay);
+        double toB = (sx[s] - bx)*(sx[s] - bx) + (sy[s] - by)*(sy[s] - by);
+        double t = (toB - toA) / divisor;
+        if (t < 0 || t > 1) {
+            return Double.NaN;
+        }
+        double dx = sx[s] + t*xdiff - ax;
+        double dy = sy[s] + t*ydiff - ay;
+        return Math.sqrt(dx*dx + dy*dy);
+    }
+
+    //Index of the first value of sorted that is larger than value
+    private static int firstAbove(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] > value) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private static double[] sortedDistinct(double[] values, int count) {
+        double[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int k = 0; k < sorted.length; k++) {
+            if (distinct == 0 || sorted[k] != sorted[distinct - 1]) {
+                sorted[distinct++] = sorted[k];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+}
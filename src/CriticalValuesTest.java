@@ -0,0 +1,58 @@
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+
+public class CriticalValuesTest {
+
+    @Test
+    public void testPointSegmentDistance() throws Exception {
+        double[] xs = {0, 2, 2};
+        double[] ys = {0, 0, 2};
+        Assert.assertEquals(1, CriticalValues.pointSegmentDistance(1, 1, xs, ys, 0), 1e-12);
+        Assert.assertEquals(Math.sqrt(2), CriticalValues.pointSegmentDistance(-1, 1, xs, ys, 0), 1e-12);
+        //closing edge from (2, 2) back to (0, 0)
+        Assert.assertEquals(Math.sqrt(2), CriticalValues.pointSegmentDistance(2, 0, xs, ys, 2), 1e-12);
+    }
+
+    @Test
+    public void testEquidistance() throws Exception {
+        double[] xs = {0, 4};
+        double[] ys = {0, 0};
+        //(0, 1) and (2, 1) are equally far from (1, 0)
+        Assert.assertEquals(Math.sqrt(2), CriticalValues.equidistance(0, 1, 2, 1, xs, ys, 0), 1e-12);
+        //the bisector of (0, 1) and (0, 3) is parallel to the edge
+        Assert.assertTrue(Double.isNaN(CriticalValues.equidistance(0, 1, 0, 3, xs, ys, 0)));
+    }
+
+    @Test
+    public void testMatchesBisection() throws Exception {
+        Point2D.Double[] polyP = TestPolygons.square(0);
+        Point2D.Double[] polyQ = TestPolygons.square(0.1);
+        CriticalValues values = new CriticalValues(polyP, polyQ);
+        double exact = values.criticalEpsilon();
+        Assert.assertTrue(values.foundReachable());
+
+        double min = 0;
+        double max = 5;
+        while (max - min >= 0.0001) {
+            double middle = (min + max) / 2;
+            if (new ReachabilityStructure(polyP, polyQ, middle).isReachable()) {
+                max = middle;
+            } else {
+                min = middle;
+            }
+        }
+        Assert.assertTrue(exact >= min - 1e-6 && exact <= max + 1e-6);
+        Assert.assertTrue(new ReachabilityStructure(polyP, polyQ, CriticalValues.decidedAt(exact)).isReachable());
+    }
+
+    @Test
+    public void testBoundsGiveSameResult() throws Exception {
+        Point2D.Double[] polyP = TestPolygons.square(0);
+        Point2D.Double[] polyQ = TestPolygons.square(0.1);
+        double exact = new CriticalValues(polyP, polyQ).criticalEpsilon();
+        double bounded = new CriticalValues(polyP, polyQ).criticalEpsilon(FrechetBounds.HAUSDORFF, FrechetBounds.DISCRETE_FRECHET);
+        Assert.assertEquals(exact, bounded, 0);
+    }
+}
@@ -18,10 +18,30 @@ class DiagonalTree {
         DiagonalNode parent;
         ArrayList<DiagonalNode> children;
 
+        //built on first use, the tree is not changed once it is handed out
+        private String signature;
+
         public boolean hasChildren() {
             return (children.size() > 0);
         }
 
+        //Nodes with the same signature have the same diagonals below them, so merging them gives the same column
+        public String signature() {
+            if (signature == null) {
+                StringBuilder builder = new StringBuilder();
+                builder.append('(').append(data.startIndex).append('-').append(data.endIndex);
+                if (data.isTrueDiagonal) {
+                    builder.append('*');
+                }
+                for (DiagonalNode child : children) {
+                    builder.append(child.signature());
+                }
+                builder.append(')');
+                signature = builder.toString();
+            }
+            return signature;
+        }
+
         public void print() {
             print("", true);
         }
@@ -1,3 +1,4 @@
+import junit.framework.Assert;
 import org.junit.Test;
 
 public class DiagonalTreeTest {
@@ -21,4 +22,23 @@ public class DiagonalTreeTest {
         testTree.subdivideDiagonals();
         testTree.print();
     }
+
+    @Test
+    public void testSignature() throws Exception {
+        //the subtree under (5 - 8) is the same in both trees, the roots are not
+        DiagonalTree first = new DiagonalTree(new Diagonal(0, 9));
+        first.addDiagonal(new Diagonal(2, 4));
+        first.addDiagonal(new Diagonal(5, 8));
+        first.subdivideDiagonals();
+        DiagonalTree second = new DiagonalTree(new Diagonal(1, 10));
+        second.addDiagonal(new Diagonal(5, 8));
+        second.subdivideDiagonals();
+
+        Assert.assertFalse(first.root().signature().equals(second.root().signature()));
+        DiagonalTree.DiagonalNode firstSub = first.root().children.get(3);
+        DiagonalTree.DiagonalNode secondSub = second.root().children.get(1);
+        Assert.assertEquals(5, firstSub.data.startIndex);
+        Assert.assertEquals(5, secondSub.data.startIndex);
+        Assert.assertEquals(firstSub.signature(), secondSub.signature());
+    }
 }
@@ -0,0 +1,257 @@
+import java.awt.geom.Point2D;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+//Frechet distances between every two polygons of a set, as an n by n matrix.
+//The distance doesn't depend on the order of the two polygons, so only the pairs i < j are solved and mirrored.
+//The pairs are split over a ForkJoinPool with ColumnTask, and work stealing evens out pairs that take far longer than
+//others. Every polygon is prepared once (see PreparedPolygon) and shared by all the pairs it is in.
+//With a checkpoint file the matrix is saved to it at most every CHECKPOINT_MILLIS while it fills up, and a new
+//matrix over the same polygons starts from the file and only solves the pairs missing from it. The file starts with
+//a fingerprint of every coordinate, so a checkpoint of other polygons is refused instead of resumed.
+public class DistanceMatrix {
+    static final long CHECKPOINT_MILLIS = 60000;
+
+    PreparedPolygon[] polygons;
+    long fingerprint;
+    //NaN where the distance isn't known yet
+    double[][] distances;
+    File checkpoint;
+    long lastCheckpoint;
+    //distances recorded so far, and how many of them the checkpoint file has
+    long recorded;
+    long savedVersion = -1;
+    //held while the checkpoint file is written, see save
+    final Object saving = new Object();
+
+    //checkpoint may be null to keep the matrix in memory only
+    public DistanceMatrix(List<Point2D.Double[]> polygons, File checkpoint) throws IOException {
+        int n = polygons.size();
+        this.polygons = new PreparedPolygon[n];
+        for (int i = 0; i < n; i++) {
+            this.polygons[i] = new PreparedPolygon(polygons.get(i));
+        }
+        fingerprint = fingerprint(polygons);
+        this.checkpoint = checkpoint;
+        lastCheckpoint = System.currentTimeMillis();
+
+        if (checkpoint != null && checkpoint.exists()) {
+            String header;
+            BufferedReader reader = new BufferedReader(new FileReader(checkpoint));
+            try {
+                header = reader.readLine();
+                distances = read(reader);
+            } finally {
+                reader.close();
+            }
+            if (distances.length != n) {
+                throw new IllegalArgumentException("Checkpoint " + checkpoint + " is for " + distances.length + " polygons, not " + n);
+            }
+            if (!fingerprintLine(fingerprint).equals(header)) {
+                throw new IllegalArgumentException("Checkpoint " + checkpoint + " is for other polygons: " + header);
+            }
+        } else {
+            distances = new double[n][n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    distances[i][j] = i == j ? 0 : Double.NaN;
+                }
+            }
+        }
+    }
+
+    //Solves every pair that is still missing on pool (on the calling thread if it is null) and returns the matrix.
+    //A pair that fails is reported and stays NaN, so a later run tries it again.
+    public double[][] compute(ForkJoinPool pool) throws IOException {
+        final ArrayList<int[]> pairs = new ArrayList<int[]>();
+        for (int i = 0; i < polygons.length; i++) {
+            for (int j = i + 1; j < polygons.length; j++) {
+                if (Double.isNaN(distances[i][j])) {
+                    pairs.add(new int[] {i, j});
+                }
+            }
+        }
+
+        ColumnTask.forEach(pool, pairs.size(), new ColumnTask.Body() {
+            public void column(int k) {
+                int i = pairs.get(k)[0];
+                int j = pairs.get(k)[1];
+                try {
+                    double distance = new CriticalValues(polygons[i], polygons[j]).criticalEpsilon(FrechetBounds.HAUSDORFF, FrechetBounds.DISCRETE_FRECHET);
+                    record(i, j, distance);
+                } catch (RuntimeException e) {
+                    System.err.println("ERROR: pair " + i + ", " + j + ": " + e.toString());
+                }
+            }
+        });
+
+        if (checkpoint != null) {
+            save();
+        }
+        return distances;
+    }
+
+    public int size() {
+        return polygons.length;
+    }
+
+    public synchronized double[][] getDistances() {
+        return distances;
+    }
+
+    private void record(int i, int j, double distance) {
+        boolean due;
+        synchronized (this) {
+            distances[i][j] = distance;
+            distances[j][i] = distance;
+            recorded++;
+            due = checkpoint != null && System.currentTimeMillis() - lastCheckpoint >= CHECKPOINT_MILLIS;
+            if (due) {
+                //the other workers don't start a checkpoint of their own meanwhile
+                lastCheckpoint = System.currentTimeMillis();
+            }
+        }
+        if (due) {
+            try {
+                save();
+            } catch (IOException e) {
+                //the next checkpoint tries again
+                System.err.println("ERROR: " + e.toString());
+            }
+        }
+    }
+
+    //The matrix is copied under the lock and written outside it, so the workers don't wait for the disk.
+    //It is written next to the checkpoint first and then moved over it in one step, so a run that stops while saving
+    //keeps the old one.
+    void save() throws IOException {
+        double[][] snapshot = new double[distances.length][];
+        long version;
+        synchronized (this) {
+            for (int i = 0; i < snapshot.length; i++) {
+                snapshot[i] = distances[i].clone();
+            }
+            version = recorded;
+            lastCheckpoint = System.currentTimeMillis();
+        }
+        synchronized (saving) {
+            //a copy taken later may have been written first
+            if (version < savedVersion) {
+                return;
+            }
+            File written = new File(checkpoint.getPath() + ".tmp");
+            Writer writer = new FileWriter(written);
+            try {
+                writer.write(fingerprintLine(fingerprint) + "\n");
+                write(writer, snapshot);
+            } finally {
+                writer.close();
+            }
+            Files.move(written.toPath(), checkpoint.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            savedVersion = version;
+        }
+    }
+
+    //Hash of the number of polygons, their lengths and the bits of every coordinate, in order
+    static long fingerprint(List<Point2D.Double[]> polygons) {
+        long hash = polygons.size();
+        for (Point2D.Double[] poly : polygons) {
+            hash = 31 * hash + poly.length;
+            for (Point2D.Double point : poly) {
+                hash = 31 * hash + Double.doubleToLongBits(point.x);
+                hash = 31 * hash + Double.doubleToLongBits(point.y);
+            }
+        }
+        return hash;
+    }
+
+    //first line of a checkpoint
+    static String fingerprintLine(long fingerprint) {
+        return "fingerprint " + Long.toHexString(fingerprint);
+    }
+
+    //n on the first line, then a line of n values per row, NaN for the unknown ones
+    static void write(Writer writer, double[][] distances) {
+        PrintWriter out = new PrintWriter(writer);
+        out.println(distances.length);
+        for (double[] row : distances) {
+            StringBuilder line = new StringBuilder();
+            for (int j = 0; j < row.length; j++) {
+                line.append(j == 0 ? "" : " ").append(row[j]);
+            }
+            out.println(line);
+        }
+        out.flush();
+    }
+
+    static double[][] read(BufferedReader reader) throws IOException {
+        String first = reader.readLine();
+        if (first == null) {
+            throw new IOException("Empty distance matrix");
+        }
+        int n = Integer.parseInt(first.trim());
+        double[][] distances = new double[n][];
+        for (int i = 0; i < n; i++) {
+            String line = reader.readLine();
+            String[] values = line == null ? new String[0] : line.trim().split("\\s+");
+            if (n > 0 && values.length != n) {
+                throw new IOException("Row " + i + " of the distance matrix has " + values.length + " values, not " + n);
+            }
+            distances[i] = new double[n];
+            for (int j = 0; j < n; j++) {
+                distances[i][j] = Double.parseDouble(values[j]);
+            }
+        }
+        return distances;
+    }
+
+    //Usage: java DistanceMatrix [-threads N] [-checkpoint file] polygon file
+    //One polygon per line, in the format of FrechetBatch. The matrix is printed as it is saved.
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        File checkpoint = null;
+        String input = null;
+        for (int k = 0; k < args.length; k++) {
+            if (args[k].equals("-threads") && k + 1 < args.length) {
+                threads = Integer.parseInt(args[++k]);
+            } else if (args[k].equals("-checkpoint") && k + 1 < args.length) {
+                checkpoint = new File(args[++k]);
+            } else {
+                input = args[k];
+            }
+        }
+        if (input == null) {
+            System.out.println("Usage: java DistanceMatrix [-threads N] [-checkpoint file] polygon file");
+            return;
+        }
+
+        ArrayList<Point2D.Double[]> polygons = new ArrayList<Point2D.Double[]>();
+        BufferedReader reader = new BufferedReader(new FileReader(input));
+        try {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                line = line.trim();
+                if (line.length() > 0 && !line.startsWith("#")) {
+                    polygons.add(FrechetBatch.parsePolygon(line));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        long start = System.currentTimeMillis();
+        double[][] distances = new DistanceMatrix(polygons, checkpoint).compute(new ForkJoinPool(threads));
+        write(new OutputStreamWriter(System.out), distances);
+        System.err.println(polygons.size() + " polygons in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
@@ -0,0 +1,76 @@
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+public class DistanceMatrixTest {
+
+    private static ArrayList<Point2D.Double[]> squares() {
+        ArrayList<Point2D.Double[]> polygons = new ArrayList<Point2D.Double[]>();
+        polygons.add(TestPolygons.square(0));
+        polygons.add(TestPolygons.square(0.1));
+        polygons.add(TestPolygons.square(0.3));
+        return polygons;
+    }
+
+    @Test
+    public void testMatchesPairs() throws Exception {
+        ArrayList<Point2D.Double[]> polygons = squares();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        double[][] distances = new DistanceMatrix(polygons, null).compute(pool);
+        pool.shutdown();
+
+        for (int i = 0; i < polygons.size(); i++) {
+            Assert.assertEquals(0.0, distances[i][i]);
+            for (int j = i + 1; j < polygons.size(); j++) {
+                double expected = new CriticalValues(polygons.get(i), polygons.get(j)).criticalEpsilon();
+                Assert.assertEquals(expected, distances[i][j], 1e-12);
+                Assert.assertEquals(distances[i][j], distances[j][i]);
+            }
+        }
+    }
+
+    @Test
+    public void testCheckpoint() throws Exception {
+        File checkpoint = File.createTempFile("distances", ".txt");
+        checkpoint.delete();
+        double[][] distances = new DistanceMatrix(squares(), checkpoint).compute(null);
+        Assert.assertTrue(checkpoint.exists());
+        Assert.assertFalse(new File(checkpoint.getPath() + ".tmp").exists());
+
+        //a half finished run: one pair is missing from the checkpoint
+        DistanceMatrix resumed = new DistanceMatrix(squares(), checkpoint);
+        resumed.distances[0][2] = Double.NaN;
+        resumed.distances[2][0] = Double.NaN;
+        resumed.save();
+        resumed = new DistanceMatrix(squares(), checkpoint);
+        Assert.assertTrue(Double.isNaN(resumed.getDistances()[0][2]));
+        Assert.assertEquals(distances[0][1], resumed.getDistances()[0][1]);
+
+        double[][] completed = resumed.compute(null);
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                Assert.assertEquals(distances[i][j], completed[i][j]);
+            }
+        }
+
+        ArrayList<Point2D.Double[]> fewer = squares();
+        fewer.remove(2);
+        try {
+            new DistanceMatrix(fewer, checkpoint);
+            Assert.fail("the checkpoint is for 3 polygons");
+        } catch (IllegalArgumentException e) {
+        }
+        ArrayList<Point2D.Double[]> moved = squares();
+        moved.set(2, TestPolygons.square(0.4));
+        try {
+            new DistanceMatrix(moved, checkpoint);
+            Assert.fail("the checkpoint is for other polygons");
+        } catch (IllegalArgumentException e) {
+        }
+        checkpoint.delete();
+    }
+}
@@ -0,0 +1,139 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Drops the arrows of a merged cell that another arrow of the same cell makes redundant.
+//An arrow is dominated if another one starts and ends on the same sides of the diagram, with a start interval
+//that contains its start and an end interval that contains its end: anything it can be joined with, the other one
+//can be joined with as well, through an intersection that is at least as large. Null arrows are dropped too.
+//Of two arrows with the same start and end only the first one in the cell is kept.
+//
+//possiblePaths only reports a path if every leaf of its arrow ends at a breakpoint of its own. A wider arrow through
+//a cell corner, where two of its breakpoints meet, must not replace a route that has them apart, so an arrow only
+//dominates others with as many leaves as it has, and only if the breakpoints of its neighbouring leaves are apart.
+//Both are stored in the arrow when it is built (see Arrow.leafCount), so the test doesn't walk the subarrows.
+//
+//This is a heuristic, not a proof: the pruned cells are subsets of the unpruned ones, so every path found with
+//pruning is a path without it, but a structure with a pruner can miss every path and answer that there is none.
+//It is only used where that is acceptable, see the ReachabilityStructure constructors.
+//
+//The counters are shared by every cell the pruner sees, which can be merged concurrently.
+public class DominancePruner {
+    AtomicLong examined = new AtomicLong();
+    AtomicLong removed = new AtomicLong();
+
+    public HashSet<Arrow> prune(Set<Arrow> cell) {
+        ArrayList<Arrow> arrows = new ArrayList<Arrow>();
+        for (Arrow arrow : cell) {
+            if (!arrow.isNull()) {
+                arrows.add(arrow);
+            }
+        }
+
+        //kept in the iteration order of the cell
+        HashSet<Arrow> result = new LinkedHashSet<Arrow>(removeDominated(arrows));
+        examined.addAndGet(cell.size());
+        removed.addAndGet(cell.size() - result.size());
+        return result;
+    }
+
+    private ArrayList<Arrow> removeDominated(ArrayList<Arrow> arrows) {
+        //group by the pair of sides; only arrows in the same group can dominate each other
+        HashMap<List<Object>, ArrayList<Arrow>> groups = new HashMap<List<Object>, ArrayList<Arrow>>();
+        for (Arrow arrow : arrows) {
+            List<Object> sides = Arrays.<Object>asList(side(arrow.start), fixed(arrow.start), side(arrow.end), fixed(arrow.end));
+            ArrayList<Arrow> group = groups.get(sides);
+            if (group == null) {
+                group = new ArrayList<Arrow>();
+                groups.put(sides, group);
+            }
+            group.add(arrow);
+        }
+
+        IdentityHashMap<Arrow, Boolean> kept = new IdentityHashMap<Arrow, Boolean>();
+        for (ArrayList<Arrow> group : groups.values()) {
+            //widest start (then end) first, so a dominating arrow is always looked at before the ones it dominates;
+            //the sort is stable, so equal arrows stay in set order and the first one is kept
+            Collections.sort(group, new Comparator<Arrow>() {
+                public int compare(Arrow a, Arrow b) {
+                    int result = Double.compare(low(a.start), low(b.start));
+                    if (result == 0) {
+                        result = Double.compare(high(b.start), high(a.start));
+                    }
+                    if (result == 0) {
+                        result = Double.compare(low(a.end), low(b.end));
+                    }
+                    if (result == 0) {
+                        result = Double.compare(high(b.end), high(a.end));
+                    }
+                    return result;
+                }
+            });
+            //only the survivors that can stand in for others, see above
+            ArrayList<Arrow> dominators = new ArrayList<Arrow>();
+            for (Arrow arrow : group) {
+                boolean isDominated = false;
+                for (Arrow dominator : dominators) {
+                    if (contains(dominator.start, arrow.start) && contains(dominator.end, arrow.end) && dominator.leafCount == arrow.leafCount) {
+                        isDominated = true;
+                        break;
+                    }
+                }
+                if (!isDominated) {
+                    kept.put(arrow, Boolean.TRUE);
+                    if (arrow.distinctBreakpoints) {
+                        dominators.add(arrow);
+                    }
+                }
+            }
+        }
+
+        ArrayList<Arrow> result = new ArrayList<Arrow>();
+        for (Arrow arrow : arrows) {
+            if (kept.containsKey(arrow)) {
+                result.add(arrow);
+            }
+        }
+        return result;
+    }
+
+    //arrows looked at
+    public long getExamined() {
+        return examined.get();
+    }
+
+    //arrows dropped, null ones included
+    public long getRemoved() {
+        return removed.get();
+    }
+
+    private static double side(Interval interval) {
+        return interval.isVertical() ? 1 : 0;
+    }
+
+    //the coordinate the interval doesn't vary in
+    private static double fixed(Interval interval) {
+        //+ 0.0 turns -0.0 into 0.0, which Double.equals would tell apart
+        return (interval.isVertical() ? interval.startGraph.x : interval.startGraph.y) + 0.0;
+    }
+
+    private static double low(Interval interval) {
+        return interval.isVertical() ? interval.startGraph.y : interval.startGraph.x;
+    }
+
+    private static double high(Interval interval) {
+        return interval.isVertical() ? interval.endGraph.y : interval.endGraph.x;
+    }
+
+    private static boolean contains(Interval outer, Interval inner) {
+        return low(outer) <= low(inner) && high(inner) <= high(outer);
+    }
+}
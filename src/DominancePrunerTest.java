@@ -0,0 +1,134 @@
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class DominancePrunerTest {
+
+    private Interval vertical(double x, double low, double high) {
+        return new Interval(new Point2D.Double(x, low), new Point2D.Double(x, high));
+    }
+
+    private Interval horizontal(double y, double low, double high) {
+        return new Interval(new Point2D.Double(low, y), new Point2D.Double(high, y));
+    }
+
+    @Test
+    public void testPrune() throws Exception {
+        Arrow wide = new Arrow(horizontal(0, 0.1, 0.9), horizontal(2, 0.2, 0.8));
+        Arrow narrow = new Arrow(horizontal(0, 0.2, 0.5), horizontal(2, 0.3, 0.6));
+        //wider end but narrower start, so neither dominates the other
+        Arrow crossing = new Arrow(horizontal(0, 0.3, 0.4), horizontal(2, 0.1, 0.9));
+        //same intervals, but ends on another row
+        Arrow otherRow = new Arrow(horizontal(0, 0.2, 0.5), horizontal(1, 0.3, 0.6));
+        //same numbers on a vertical side
+        Arrow otherSide = new Arrow(horizontal(0, 0.2, 0.5), vertical(1, 0.3, 0.6));
+
+        Set<Arrow> cell = new LinkedHashSet<Arrow>();
+        cell.add(narrow);
+        cell.add(wide);
+        cell.add(crossing);
+        cell.add(otherRow);
+        cell.add(otherSide);
+        cell.add(new Arrow());
+
+        DominancePruner pruner = new DominancePruner();
+        HashSet<Arrow> pruned = pruner.prune(cell);
+
+        Assert.assertEquals(4, pruned.size());
+        Assert.assertTrue(pruned.contains(wide));
+        Assert.assertFalse(pruned.contains(narrow));
+        Assert.assertTrue(pruned.contains(crossing));
+        Assert.assertTrue(pruned.contains(otherRow));
+        Assert.assertTrue(pruned.contains(otherSide));
+        Assert.assertEquals(6, pruner.getExamined());
+        Assert.assertEquals(2, pruner.getRemoved());
+    }
+
+    @Test
+    public void testSameIntervalsKeepOne() throws Exception {
+        Arrow first = new Arrow(horizontal(0, 0.2, 0.5), horizontal(2, 0.3, 0.6));
+        ArrayList<Arrow> subs = new ArrayList<Arrow>();
+        subs.add(new Arrow(horizontal(0, 0.2, 0.5), horizontal(1, 0.3, 0.6)));
+        Arrow second = new Arrow(horizontal(0, 0.2, 0.5), horizontal(2, 0.3, 0.6), subs);
+
+        Set<Arrow> cell = new LinkedHashSet<Arrow>();
+        cell.add(first);
+        cell.add(second);
+
+        HashSet<Arrow> pruned = new DominancePruner().prune(cell);
+        Assert.assertEquals(1, pruned.size());
+        Assert.assertTrue(pruned.contains(first));
+    }
+
+    private Arrow merged(Interval start, Interval end, Arrow... subs) {
+        ArrayList<Arrow> subArrows = new ArrayList<Arrow>();
+        for (Arrow sub : subs) {
+            subArrows.add(sub);
+        }
+        return new Arrow(start, end, subArrows);
+    }
+
+    @Test
+    public void testCornerDoesNotDominate() throws Exception {
+        //both leaves of the wide arrow break at the corner (1, 1), the narrow one breaks at (0.6, 1) and (1, 1.2)
+        Arrow wide = merged(horizontal(0, 0.1, 0.9), vertical(1, 1.0, 1.8),
+                new Arrow(horizontal(0, 0.1, 0.9), horizontal(1, 0.2, 1.0)),
+                new Arrow(horizontal(1, 0.2, 1.0), vertical(1, 1.0, 1.8)));
+        Arrow narrow = merged(horizontal(0, 0.2, 0.5), vertical(1, 1.2, 1.6),
+                new Arrow(horizontal(0, 0.2, 0.5), horizontal(1, 0.3, 0.6)),
+                new Arrow(horizontal(1, 0.3, 0.6), vertical(1, 1.2, 1.6)));
+        Assert.assertFalse(wide.distinctBreakpoints);
+        Assert.assertTrue(narrow.distinctBreakpoints);
+
+        Set<Arrow> cell = new LinkedHashSet<Arrow>();
+        cell.add(wide);
+        cell.add(narrow);
+        HashSet<Arrow> pruned = new DominancePruner().prune(cell);
+        Assert.assertEquals(2, pruned.size());
+    }
+
+    @Test
+    public void testOtherLeafCountNotDominated() throws Exception {
+        Arrow wide = merged(horizontal(0, 0.1, 0.9), horizontal(2, 0.1, 0.9),
+                new Arrow(horizontal(0, 0.1, 0.9), horizontal(1, 0.2, 0.8)),
+                new Arrow(horizontal(1, 0.2, 0.8), horizontal(2, 0.1, 0.9)));
+        Arrow narrow = new Arrow(horizontal(0, 0.2, 0.5), horizontal(2, 0.3, 0.6));
+
+        Set<Arrow> cell = new LinkedHashSet<Arrow>();
+        cell.add(wide);
+        cell.add(narrow);
+        HashSet<Arrow> pruned = new DominancePruner().prune(cell);
+        Assert.assertEquals(2, pruned.size());
+    }
+
+    private void assertSameAnswers(Point2D.Double[] polyP, Point2D.Double[] polyQ, double epsilon) {
+        ReachabilityStructure plain = new ReachabilityStructure(polyP, polyQ, epsilon);
+        ReachabilityStructure pruned = new ReachabilityStructure(polyP, polyQ, epsilon, null, new DominancePruner());
+        //always: a path found with pruning is one without it
+        if (pruned.isReachable()) {
+            Assert.assertTrue(plain.isReachable());
+        }
+        //pruning can miss paths, but it doesn't on these
+        Assert.assertEquals(plain.isReachable(), pruned.isReachable());
+    }
+
+    @Test
+    public void testSameAnswersAsWithoutPruning() throws Exception {
+        for (double epsilon : new double[] {0.05, 0.15, 0.5, 1, 10}) {
+            assertSameAnswers(TestPolygons.square(0), TestPolygons.square(0.1), epsilon);
+        }
+
+        Random random = new Random(7);
+        for (int k = 0; k < 40; k++) {
+            Point2D.Double[] polyP = TestPolygons.randomPolygon(random, 3 + random.nextInt(4));
+            Point2D.Double[] polyQ = TestPolygons.randomPolygon(random, 3 + random.nextInt(4));
+            assertSameAnswers(polyP, polyQ, 0.3 + 1.2 * random.nextDouble());
+        }
+    }
+}
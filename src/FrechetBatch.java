@@ -0,0 +1,180 @@
+import java.awt.geom.Point2D;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Computes the Frechet distance of many polygon pairs, without a window.
+//Usage: java FrechetBatch [-threads N] [-out file] input files...
+//Every line of an input file is one pair: the points of P, a semicolon, then the points of Q, each point as x,y
+//and the points separated by spaces. Empty lines and lines starting with # are skipped.
+//For every pair a tab separated line is written as soon as it is done, so the results are in the order they finish:
+//file:line, the critical epsilon, milliseconds for the epsilon and for the path, and a matching path as x,y points.
+//A pair that fails gets ERROR and the reason in place of the epsilon, also when no path was found.
+public class FrechetBatch {
+    static final String HEADER = "pair\tepsilon\tepsilon ms\tpath ms\tpath";
+    //pairs read ahead of the workers per thread, so the input is never all in memory
+    static final int QUEUED_PER_THREAD = 4;
+
+    int threads;
+    PrintWriter out;
+
+    public FrechetBatch(int threads, Writer out) {
+        this.threads = threads;
+        this.out = new PrintWriter(out);
+    }
+
+    //Solves every pair of files and returns how many there were
+    public int run(List<String> files) throws IOException, InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        final Semaphore queued = new Semaphore(threads * QUEUED_PER_THREAD);
+        final AtomicInteger failures = new AtomicInteger();
+        int pairs = 0;
+        write(HEADER);
+        try {
+            for (String file : files) {
+                BufferedReader reader = new BufferedReader(new FileReader(file));
+                try {
+                    int lineNumber = 0;
+                    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                        lineNumber++;
+                        line = line.trim();
+                        if (line.length() == 0 || line.startsWith("#")) {
+                            continue;
+                        }
+                        final String id = file + ":" + lineNumber;
+                        final String pair = line;
+                        queued.acquire();
+                        workers.execute(new Runnable() {
+                            public void run() {
+                                try {
+                                    String result = solve(id, pair);
+                                    if (result.startsWith(id + "\tERROR")) {
+                                        failures.incrementAndGet();
+                                    }
+                                    write(result);
+                                } finally {
+                                    queued.release();
+                                }
+                            }
+                        });
+                        pairs++;
+                    }
+                } finally {
+                    reader.close();
+                }
+            }
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+            out.flush();
+        }
+        if (failures.get() > 0) {
+            System.err.println("ERROR: " + failures.get() + " of " + pairs + " pairs failed");
+        }
+        return pairs;
+    }
+
+    //Result line for the pair on line, see above
+    static String solve(String id, String line) {
+        try {
+            Point2D.Double[][] pair = parsePair(line);
+            long start = System.nanoTime();
+            CriticalValues criticalValues = new CriticalValues(pair[0], pair[1]);
+            double epsilon = criticalValues.criticalEpsilon(FrechetBounds.HAUSDORFF, FrechetBounds.DISCRETE_FRECHET);
+            if (!criticalValues.foundReachable()) {
+                return id + "\tERROR: nothing reachable up to " + epsilon;
+            }
+            long found = System.nanoTime();
+            Point2D.Double[] path = new ReachabilityStructure(pair[0], pair[1], CriticalValues.decidedAt(epsilon)).getFirstReachablePath();
+            long end = System.nanoTime();
+            if (path == null) {
+                return id + "\tERROR: no path at " + epsilon;
+            }
+
+            StringBuilder result = new StringBuilder();
+            result.append(id).append('\t').append(epsilon);
+            result.append('\t').append((found - start) / 1000000).append('\t').append((end - found) / 1000000).append('\t');
+            for (int k = 0; k < path.length; k++) {
+                result.append(k == 0 ? "" : " ").append(path[k].x).append(',').append(path[k].y);
+            }
+            return result.toString();
+        } catch (RuntimeException e) {
+            return id + "\tERROR: " + e.toString();
+        } catch (StackOverflowError e) {
+            //a deep merge can run out of stack, the pair gets its line and the next one has a fresh stack.
+            //other errors, like running out of memory, end the run
+            return id + "\tERROR: " + e.toString();
+        }
+    }
+
+    //P and Q from a line of an input file
+    static Point2D.Double[][] parsePair(String line) {
+        String[] polygons = line.split(";");
+        if (polygons.length != 2) {
+            throw new IllegalArgumentException("Expected two polygons separated by ;");
+        }
+        return new Point2D.Double[][] {parsePolygon(polygons[0]), parsePolygon(polygons[1])};
+    }
+
+    static Point2D.Double[] parsePolygon(String text) {
+        String[] points = text.trim().split("\\s+");
+        if (points.length < 3) {
+            throw new IllegalArgumentException("A polygon needs at least 3 points: " + text.trim());
+        }
+        Point2D.Double[] poly = new Point2D.Double[points.length];
+        for (int k = 0; k < points.length; k++) {
+            String[] coordinates = points[k].split(",");
+            if (coordinates.length != 2) {
+                throw new IllegalArgumentException("Expected a point as x,y: " + points[k]);
+            }
+            poly[k] = new Point2D.Double(Double.parseDouble(coordinates[0]), Double.parseDouble(coordinates[1]));
+        }
+        return poly;
+    }
+
+    //whole lines only, so lines from different workers don't mix, and right away so nothing is lost if the run stops
+    private void write(String line) {
+        synchronized (out) {
+            out.println(line);
+            out.flush();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        String output = null;
+        ArrayList<String> files = new ArrayList<String>();
+        for (int k = 0; k < args.length; k++) {
+            if (args[k].equals("-threads") && k + 1 < args.length) {
+                threads = Integer.parseInt(args[++k]);
+            } else if (args[k].equals("-out") && k + 1 < args.length) {
+                output = args[++k];
+            } else {
+                files.add(args[k]);
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: java FrechetBatch [-threads N] [-out file] input files...");
+            System.exit(2);
+        }
+
+        Writer writer = output == null ? new OutputStreamWriter(System.out) : new FileWriter(output);
+        long start = System.currentTimeMillis();
+        int pairs = new FrechetBatch(threads, writer).run(files);
+        if (output != null) {
+            writer.close();
+        }
+        System.err.println(pairs + " pairs in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
@@ -0,0 +1,68 @@
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+
+public class FrechetBatchTest {
+
+    @Test
+    public void testParsePair() {
+        Point2D.Double[][] pair = FrechetBatch.parsePair("0,0 1,0 1,1 ; 0.5,0 1.5,0 1.5,1 0.5,1");
+        Assert.assertEquals(3, pair[0].length);
+        Assert.assertEquals(4, pair[1].length);
+        Assert.assertEquals(new Point2D.Double(1.5, 1), pair[1][2]);
+        try {
+            FrechetBatch.parsePair("0,0 1,0 1,1");
+            Assert.fail("Q is missing");
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            FrechetBatch.parsePair("0,0 1,0 1 ; 0,0 1,0 1,1");
+            Assert.fail("1 is not a point");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        File input = File.createTempFile("pairs", ".txt");
+        FileWriter writer = new FileWriter(input);
+        writer.write("# squares\n");
+        writer.write("0,0 1,0 1,1 0,1; 0.1,0.1 1.1,0.1 1.1,1.1 0.1,1.1\n");
+        writer.write("\n");
+        writer.write("0,0 1,0 1,1 0,1; 0,0 2,0 2,2 0,2\n");
+        writer.write("0,0 1,0; 0,0 1,0 1,1\n");
+        //Q has a vertex twice, no path gets through
+        writer.write("0,0 1,0 1,1 0,1; 0,0 0,0 1,1 0,1\n");
+        writer.close();
+
+        StringWriter output = new StringWriter();
+        Assert.assertEquals(4, new FrechetBatch(2, output).run(Arrays.asList(input.getPath())));
+        input.delete();
+
+        String[] lines = output.toString().trim().split("\n");
+        Assert.assertEquals(5, lines.length);
+        Assert.assertEquals(FrechetBatch.HEADER, lines[0].trim());
+        HashMap<String, String[]> results = new HashMap<String, String[]>();
+        for (int k = 1; k < lines.length; k++) {
+            String[] columns = lines[k].trim().split("\t");
+            results.put(columns[0], columns);
+        }
+
+        String[] first = results.get(input.getPath() + ":2");
+        Point2D.Double[][] pair = FrechetBatch.parsePair("0,0 1,0 1,1 0,1; 0.1,0.1 1.1,0.1 1.1,1.1 0.1,1.1");
+        double expected = new CriticalValues(pair[0], pair[1]).criticalEpsilon();
+        Assert.assertEquals(expected, Double.parseDouble(first[1]), 1e-12);
+        Assert.assertEquals(5, first.length);
+        Assert.assertTrue(first[4].length() > 0);
+
+        Assert.assertEquals(5, results.get(input.getPath() + ":4").length);
+        Assert.assertTrue(results.get(input.getPath() + ":5")[1].startsWith("ERROR"));
+        Assert.assertTrue(results.get(input.getPath() + ":6")[1].startsWith("ERROR"));
+    }
+}
@@ -0,0 +1,9 @@
+import java.awt.geom.Point2D;
+
+//A cheap bound on the Frechet distance of two polygons, to narrow or skip the exact computation.
+//A bound that only has one side to offer returns 0 as its lower or infinity as its upper bound.
+public interface FrechetBound {
+    double lower(Point2D.Double[] polyP, Point2D.Double[] polyQ);
+
+    double upper(Point2D.Double[] polyP, Point2D.Double[] polyQ);
+}
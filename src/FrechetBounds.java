@@ -0,0 +1,117 @@
+import java.awt.geom.Point2D;
+
+//The bounds that come with the project, and how to combine several of them.
+//All of them look at the vertices only, so they cost O(nm) against the far larger cost of a ReachabilityStructure.
+public class FrechetBounds {
+
+    //Lower bound: how far a vertex of one polygon is from the boundary of the other, at most.
+    //This is the Hausdorff distance of the boundaries with only the vertices looked at on the far side,
+    //and any matching has to take each vertex at least that far.
+    public static final FrechetBound HAUSDORFF = new FrechetBound() {
+        public double lower(Point2D.Double[] polyP, Point2D.Double[] polyQ) {
+            return Math.max(vertexHausdorff(polyP, polyQ), vertexHausdorff(polyQ, polyP));
+        }
+
+        public double upper(Point2D.Double[] polyP, Point2D.Double[] polyQ) {
+            return Double.POSITIVE_INFINITY;
+        }
+    };
+
+    //Upper bound: the discrete Frechet distance of the closed vertex sequences.
+    //Walking both polygons vertex by vertex in the order it finds, and straight along the edges in between,
+    //is a matching of the two boundaries, so the continuous distance is never larger.
+    //Q is started at the vertex nearest to the first vertex of P; any start is a valid bound.
+    public static final FrechetBound DISCRETE_FRECHET = new FrechetBound() {
+        public double lower(Point2D.Double[] polyP, Point2D.Double[] polyQ) {
+            return 0;
+        }
+
+        public double upper(Point2D.Double[] polyP, Point2D.Double[] polyQ) {
+            return discreteFrechet(polyP, polyQ, nearestVertex(polyQ, polyP[0]));
+        }
+    };
+
+    //Largest lower bound of bounds, 0 if there are none
+    public static double lower(Point2D.Double[] polyP, Point2D.Double[] polyQ, FrechetBound... bounds) {
+        double lower = 0;
+        for (FrechetBound bound : bounds) {
+            lower = Math.max(lower, bound.lower(polyP, polyQ));
+        }
+        return lower;
+    }
+
+    //Smallest upper bound of bounds, infinity if there are none
+    public static double upper(Point2D.Double[] polyP, Point2D.Double[] polyQ, FrechetBound... bounds) {
+        double upper = Double.POSITIVE_INFINITY;
+        for (FrechetBound bound : bounds) {
+            upper = Math.min(upper, bound.upper(polyP, polyQ));
+        }
+        return upper;
+    }
+
+    //For batch comparisons: true if the pair is certainly further apart than threshold, so it can be skipped.
+    //Stops at the first bound that shows it.
+    public static boolean exceeds(Point2D.Double[] polyP, Point2D.Double[] polyQ, double threshold, FrechetBound... bounds) {
+        for (FrechetBound bound : bounds) {
+            if (bound.lower(polyP, polyQ) > threshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Largest distance of a vertex of from to the closed boundary of to
+    static double vertexHausdorff(Point2D.Double[] from, Point2D.Double[] to) {
+        double[] tx = new double[to.length];
+        double[] ty = new double[to.length];
+        FreeSpaceKernel.copyCoordinates(to, tx, ty);
+        double largest = 0;
+        for (Point2D.Double vertex : from) {
+            double nearest = Double.POSITIVE_INFINITY;
+            for (int s = 0; s < to.length; s++) {
+                nearest = Math.min(nearest, CriticalValues.pointSegmentDistance(vertex.x, vertex.y, tx, ty, s));
+            }
+            largest = Math.max(largest, nearest);
+        }
+        return largest;
+    }
+
+    //Discrete Frechet distance of p0 .. p(n-1) p0 and q(start) .. q(start-1) q(start), one row of the table at a time
+    static double discreteFrechet(Point2D.Double[] polyP, Point2D.Double[] polyQ, int start) {
+        int n = polyP.length + 1;
+        int m = polyQ.length + 1;
+        double[] previous = new double[m];
+        double[] current = new double[m];
+        for (int i = 0; i < n; i++) {
+            Point2D.Double p = polyP[i % polyP.length];
+            for (int j = 0; j < m; j++) {
+                double distance = p.distance(polyQ[(start + j) % polyQ.length]);
+                double reach;
+                if (i == 0 && j == 0) {
+                    reach = 0;
+                } else if (i == 0) {
+                    reach = current[j - 1];
+                } else if (j == 0) {
+                    reach = previous[j];
+                } else {
+                    reach = Math.min(previous[j], Math.min(previous[j - 1], current[j - 1]));
+                }
+                current[j] = Math.max(reach, distance);
+            }
+            double[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[m - 1];
+    }
+
+    static int nearestVertex(Point2D.Double[] poly, Point2D.Double point) {
+        int nearest = 0;
+        for (int k = 1; k < poly.length; k++) {
+            if (poly[k].distanceSq(point) < poly[nearest].distanceSq(point)) {
+                nearest = k;
+            }
+        }
+        return nearest;
+    }
+}
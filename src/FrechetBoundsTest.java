@@ -0,0 +1,34 @@
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.Random;
+
+public class FrechetBoundsTest {
+
+    @Test
+    public void testShiftedSquare() throws Exception {
+        //every vertex moves by (0.1, 0.1), and nothing can do better than that
+        Point2D.Double[] polyP = TestPolygons.square(0);
+        Point2D.Double[] polyQ = TestPolygons.square(0.1);
+        double shift = Math.sqrt(0.02);
+
+        Assert.assertEquals(shift, FrechetBounds.HAUSDORFF.lower(polyP, polyQ), 1e-12);
+        Assert.assertEquals(shift, FrechetBounds.DISCRETE_FRECHET.upper(polyP, polyQ), 1e-12);
+        Assert.assertEquals(0, FrechetBounds.DISCRETE_FRECHET.lower(polyP, polyQ), 0);
+        Assert.assertTrue(FrechetBounds.exceeds(polyP, polyQ, 0.1, FrechetBounds.HAUSDORFF));
+        Assert.assertFalse(FrechetBounds.exceeds(polyP, polyQ, 0.2, FrechetBounds.HAUSDORFF, FrechetBounds.DISCRETE_FRECHET));
+    }
+
+    @Test
+    public void testLowerBelowUpper() throws Exception {
+        Random random = new Random(13);
+        for (int k = 0; k < 50; k++) {
+            Point2D.Double[] polyP = TestPolygons.randomPolygon(random, 3 + random.nextInt(8));
+            Point2D.Double[] polyQ = TestPolygons.randomPolygon(random, 3 + random.nextInt(8));
+            double lower = FrechetBounds.lower(polyP, polyQ, FrechetBounds.HAUSDORFF, FrechetBounds.DISCRETE_FRECHET);
+            double upper = FrechetBounds.upper(polyP, polyQ, FrechetBounds.HAUSDORFF, FrechetBounds.DISCRETE_FRECHET);
+            Assert.assertTrue(lower <= upper);
+        }
+    }
+}
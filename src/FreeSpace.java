@@ -0,0 +1,145 @@
+import java.awt.geom.Point2D;
+import java.util.concurrent.ForkJoinPool;
+
+//Free space of a diagram kept as flat arrays of (t1, t2) pairs, one pair per cell boundary.
+//Vertical boundaries lie on the vertices of the x-axis polygon, horizontal ones on the vertices of the y-axis polygon.
+//t1 and t2 are the parameters along the boundary's segment, so the graph coordinates are t + index.
+//A boundary without free space is stored with t1 == t2.
+//When the x-axis polygon is repeated (P is doubled) only one period is stored and the
+//rest of the diagram is a view of it with the column index taken modulo the period.
+public class FreeSpace {
+    int columns;
+    int rows;
+
+    //number of vertical lines and of columns actually stored
+    int storedLines;
+    int storedColumns;
+
+    //boundary at x = i spanning y in [j, j+1], storedLines * rows pairs
+    double[] vertical;
+    //boundary at y = j spanning x in [i, i+1], storedColumns * (rows + 1) pairs
+    double[] horizontal;
+
+    public FreeSpace(Point2D.Double[] polyX, Point2D.Double[] polyY, double epsilon) {
+        this(polyX, polyY, epsilon, true, polyX.length - 1, null);
+    }
+
+    //With shareBoundaries every boundary is computed once and read by both cells next to it.
+    //Without it every cell computes its four sides, so shared borders are computed twice.
+    //Both give identical arrays.
+    //period is the number of distinct columns: polyX.length / 2 for a doubled polygon, otherwise all of them.
+    //If pool is not null the shared lines are computed on it, one task per line.
+    public FreeSpace(Point2D.Double[] polyX, Point2D.Double[] polyY, final double epsilon, boolean shareBoundaries, int period, ForkJoinPool pool) {
+        this.columns = polyX.length - 1;
+        this.rows = polyY.length - 1;
+        if (period < columns) {
+            //line period is the same as line 0, so it is not stored separately
+            this.storedLines = period;
+            this.storedColumns = period;
+        } else {
+            this.storedLines = columns + 1;
+            this.storedColumns = columns;
+        }
+        this.vertical = new double[2 * storedLines * rows];
+        this.horizontal = new double[2 * storedColumns * (rows + 1)];
+
+        //coordinates as separate primitive arrays, which is what the kernels work on
+        final double[] px = new double[polyX.length];
+        final double[] py = new double[polyX.length];
+        final double[] qx = new double[polyY.length];
+        final double[] qy = new double[polyY.length];
+        FreeSpaceKernel.copyCoordinates(polyX, px, py);
+        FreeSpaceKernel.copyCoordinates(polyY, qx, qy);
+
+        if (shareBoundaries) {
+            //vertical lines: every Q segment against one P vertex, stored contiguously
+            ColumnTask.forEach(pool, storedLines, new ColumnTask.Body() {
+                public void column(int i) {
+                    FreeSpaceKernel.pointAgainstSegments(px[i], py[i], qx, qy, 0, rows, epsilon, vertical, verticalIndex(i, 0));
+                }
+            });
+            //horizontal lines: one P segment against every Q vertex
+            ColumnTask.forEach(pool, storedColumns, new ColumnTask.Body() {
+                public void column(int i) {
+                    FreeSpaceKernel.segmentAgainstPoints(px, py, i, qx, qy, 0, rows + 1, epsilon, horizontal, horizontalIndex(i, 0));
+                }
+            });
+        } else {
+            for (int i = 0; i < storedColumns; i++) {
+                for (int j = 0; j < rows; j++) {
+                    //left and right: Q segment against the P vertices on either side
+                    FreeSpaceKernel.solve(qx, qy, j, px[i], py[i], epsilon, vertical, verticalIndex(i, j));
+                    FreeSpaceKernel.solve(qx, qy, j, px[i + 1], py[i + 1], epsilon, vertical, verticalIndex(i + 1, j));
+                    //top and bottom: P segment against the Q vertices above and below
+                    FreeSpaceKernel.solve(px, py, i, qx[j + 1], qy[j + 1], epsilon, horizontal, horizontalIndex(i, j + 1));
+                    FreeSpaceKernel.solve(px, py, i, qx[j], qy[j], epsilon, horizontal, horizontalIndex(i, j));
+                }
+            }
+        }
+    }
+
+    //Free space at epsilon, sliced out of geometry without computing any of it again.
+    //Gives the same arrays as building the free space from the polygons.
+    public FreeSpace(final FreeSpaceGeometry geometry, final double epsilon, ForkJoinPool pool) {
+        this.columns = geometry.columns;
+        this.rows = geometry.rows;
+        this.storedLines = geometry.storedLines;
+        this.storedColumns = geometry.storedColumns;
+        this.vertical = new double[2 * storedLines * rows];
+        this.horizontal = new double[2 * storedColumns * (rows + 1)];
+
+        ColumnTask.forEach(pool, storedLines, new ColumnTask.Body() {
+            public void column(int i) {
+                FreeSpaceKernel.threshold(geometry.verticalB, geometry.verticalDistance, geometry.verticalDivisor, i * rows, (i + 1) * rows, epsilon, vertical);
+            }
+        });
+        ColumnTask.forEach(pool, storedColumns, new ColumnTask.Body() {
+            public void column(int i) {
+                FreeSpaceKernel.threshold(geometry.horizontalB, geometry.horizontalDistance, geometry.horizontalDivisor, i * (rows + 1), (i + 1) * (rows + 1), epsilon, horizontal);
+            }
+        });
+    }
+
+    int verticalIndex(int i, int j) {
+        return 2 * ((i % storedLines) * rows + j);
+    }
+
+    int horizontalIndex(int i, int j) {
+        return 2 * ((i % storedColumns) * (rows + 1) + j);
+    }
+
+    public boolean hasVertical(int i, int j) {
+        int k = verticalIndex(i, j);
+        return vertical[k] != vertical[k + 1];
+    }
+
+    public boolean hasHorizontal(int i, int j) {
+        int k = horizontalIndex(i, j);
+        return horizontal[k] != horizontal[k + 1];
+    }
+
+    //New interval for the boundary, or null if it has no free space.
+    //Degenerate intervals are returned without points, like the Interval copy constructor does.
+    public Interval verticalInterval(int i, int j) {
+        if (!hasVertical(i, j)) {
+            return null;
+        }
+        int k = verticalIndex(i, j);
+        return interval(new Point2D.Double(i, vertical[k] + j), new Point2D.Double(i, vertical[k + 1] + j));
+    }
+
+    public Interval horizontalInterval(int i, int j) {
+        if (!hasHorizontal(i, j)) {
+            return null;
+        }
+        int k = horizontalIndex(i, j);
+        return interval(new Point2D.Double(horizontal[k] + i, j), new Point2D.Double(horizontal[k + 1] + i, j));
+    }
+
+    private Interval interval(Point2D.Double start, Point2D.Double end) {
+        if (start.equals(end)) {
+            return new Interval();
+        }
+        return new Interval(start, end);
+    }
+}
@@ -0,0 +1,59 @@
+import java.awt.geom.Point2D;
+import java.util.concurrent.ForkJoinPool;
+
+//Everything about the boundaries of a free-space diagram that does not depend on epsilon.
+//For every boundary it keeps b, the divisor and the squared distance term of the quadratic in freeSpaceForSegment,
+//in the same layout as the (t1, t2) pairs of FreeSpace. A FreeSpace for any epsilon is then sliced out of it
+//without any geometry, which is what a search over epsilon does over and over for the same two polygons.
+//Never changed after construction, so any number of structures can share one.
+public class FreeSpaceGeometry {
+    int columns;
+    int rows;
+    int storedLines;
+    int storedColumns;
+
+    //one entry per boundary, entry k belongs to the pair at 2 * k in FreeSpace
+    double[] verticalB;
+    double[] verticalDistance;
+    double[] verticalDivisor;
+    double[] horizontalB;
+    double[] horizontalDistance;
+    double[] horizontalDivisor;
+
+    //period as in FreeSpace. If pool is not null the lines are measured on it, one task per line.
+    public FreeSpaceGeometry(Point2D.Double[] polyX, Point2D.Double[] polyY, int period, ForkJoinPool pool) {
+        this.columns = polyX.length - 1;
+        this.rows = polyY.length - 1;
+        if (period < columns) {
+            this.storedLines = period;
+            this.storedColumns = period;
+        } else {
+            this.storedLines = columns + 1;
+            this.storedColumns = columns;
+        }
+        verticalB = new double[storedLines * rows];
+        verticalDistance = new double[storedLines * rows];
+        verticalDivisor = new double[storedLines * rows];
+        horizontalB = new double[storedColumns * (rows + 1)];
+        horizontalDistance = new double[storedColumns * (rows + 1)];
+        horizontalDivisor = new double[storedColumns * (rows + 1)];
+
+        final double[] px = new double[polyX.length];
+        final double[] py = new double[polyX.length];
+        final double[] qx = new double[polyY.length];
+        final double[] qy = new double[polyY.length];
+        FreeSpaceKernel.copyCoordinates(polyX, px, py);
+        FreeSpaceKernel.copyCoordinates(polyY, qx, qy);
+
+        ColumnTask.forEach(pool, storedLines, new ColumnTask.Body() {
+            public void column(int i) {
+                FreeSpaceKernel.measurePointAgainstSegments(px[i], py[i], qx, qy, 0, rows, verticalB, verticalDistance, verticalDivisor, i * rows);
+            }
+        });
+        ColumnTask.forEach(pool, storedColumns, new ColumnTask.Body() {
+            public void column(int i) {
+                FreeSpaceKernel.measureSegmentAgainstPoints(px, py, i, qx, qy, 0, rows + 1, horizontalB, horizontalDistance, horizontalDivisor, i * (rows + 1));
+            }
+        });
+    }
+}
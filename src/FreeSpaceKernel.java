@@ -0,0 +1,177 @@
+import java.awt.geom.Point2D;
+
+//Batch versions of the quadratic solve in ReachabilityStructure.freeSpaceForSegment.
+//They work on primitive coordinate arrays (x and y kept apart) and write (t1, t2) pairs into a flat result array,
+//so a whole line of the free-space diagram is computed in one loop without any objects.
+//The arithmetic is kept exactly as in freeSpaceForSegment, so the results are bit for bit the same.
+//A boundary without free space gets t1 == t2 == 0.
+//
+//The two line loops can go to VectorFreeSpaceKernel instead, see loadVectorLines.
+public class FreeSpaceKernel {
+
+    //The line loops, so the jdk.incubator.vector versions can stand in for the scalar ones below
+    interface Lines {
+        void pointAgainstSegments(double ax, double ay, double[] sx, double[] sy, int from, int to, double epsilon, double[] result, int offset);
+        void segmentAgainstPoints(double[] sx, double[] sy, int s, double[] ax, double[] ay, int from, int to, double epsilon, double[] result, int offset);
+    }
+
+    static final Lines SCALAR_LINES = new Lines() {
+        public void pointAgainstSegments(double ax, double ay, double[] sx, double[] sy, int from, int to, double epsilon, double[] result, int offset) {
+            scalarPointAgainstSegments(ax, ay, sx, sy, from, to, epsilon, result, offset);
+        }
+
+        public void segmentAgainstPoints(double[] sx, double[] sy, int s, double[] ax, double[] ay, int from, int to, double epsilon, double[] result, int offset) {
+            scalarSegmentAgainstPoints(sx, sy, s, ax, ay, from, to, epsilon, result, offset);
+        }
+    };
+
+    //null when the scalar loops are used
+    static final Lines VECTOR_LINES = Boolean.getBoolean("frechet.vectorKernel") ? loadVectorLines() : null;
+
+    //VectorFreeSpaceKernel is in src-vector and needs --add-modules jdk.incubator.vector to compile and to run.
+    //It is looked up by name, so everything else builds and runs without it, on the scalar loops.
+    //It is only used with -Dfrechet.vectorKernel=true: on JDK 17 it is two to three times slower than the scalar loops,
+    //which the JIT vectorizes well enough on its own (see FreeSpaceKernelBenchmark in src-vector).
+    static Lines loadVectorLines() {
+        try {
+            return (Lines) Class.forName("VectorFreeSpaceKernel").newInstance();
+        } catch (Exception e) {
+            //not compiled in
+            return null;
+        } catch (LinkageError e) {
+            //compiled in, but the module isn't there at run time
+            return null;
+        }
+    }
+
+    static void copyCoordinates(Point2D.Double[] poly, double[] xs, double[] ys) {
+        for (int k = 0; k < poly.length; k++) {
+            xs[k] = poly[k].x;
+            ys[k] = poly[k].y;
+        }
+    }
+
+    //Point (ax, ay) against the segments k -> k+1 for k in [from, to).
+    //This is one vertical line of the diagram: a P vertex against a column of Q segments.
+    static void pointAgainstSegments(double ax, double ay, double[] sx, double[] sy, int from, int to, double epsilon, double[] result, int offset) {
+        if (VECTOR_LINES != null) {
+            VECTOR_LINES.pointAgainstSegments(ax, ay, sx, sy, from, to, epsilon, result, offset);
+        } else {
+            scalarPointAgainstSegments(ax, ay, sx, sy, from, to, epsilon, result, offset);
+        }
+    }
+
+    static void scalarPointAgainstSegments(double ax, double ay, double[] sx, double[] sy, int from, int to, double epsilon, double[] result, int offset) {
+        double epsilonSquared = epsilon*epsilon;
+        for (int k = from; k < to; k++) {
+            double startX = sx[k];
+            double startY = sy[k];
+            double xdiff = sx[k + 1] - startX;
+            double ydiff = sy[k + 1] - startY;
+            double divisor = xdiff*xdiff + ydiff*ydiff;
+            double b = (ax - startX)*xdiff + (ay - startY)*ydiff;
+            double q = (startX*startX + startY*startY + ax*ax + ay*ay - 2*startX*ax - 2*startY*ay - epsilonSquared) * divisor;
+            store(b, q, divisor, result, offset + 2 * (k - from));
+        }
+        checkDivisors(sx, sy, from, to);
+    }
+
+    //Segment s -> s+1 against the points k for k in [from, to).
+    //This is one horizontal line of the diagram: a P segment against every Q vertex.
+    static void segmentAgainstPoints(double[] sx, double[] sy, int s, double[] ax, double[] ay, int from, int to, double epsilon, double[] result, int offset) {
+        if (VECTOR_LINES != null) {
+            VECTOR_LINES.segmentAgainstPoints(sx, sy, s, ax, ay, from, to, epsilon, result, offset);
+        } else {
+            scalarSegmentAgainstPoints(sx, sy, s, ax, ay, from, to, epsilon, result, offset);
+        }
+    }
+
+    static void scalarSegmentAgainstPoints(double[] sx, double[] sy, int s, double[] ax, double[] ay, int from, int to, double epsilon, double[] result, int offset) {
+        double startX = sx[s];
+        double startY = sy[s];
+        double xdiff = sx[s + 1] - startX;
+        double ydiff = sy[s + 1] - startY;
+        double divisor = xdiff*xdiff + ydiff*ydiff;
+        double startSquared = startX*startX + startY*startY;
+        double epsilonSquared = epsilon*epsilon;
+        for (int k = from; k < to; k++) {
+            double b = (ax[k] - startX)*xdiff + (ay[k] - startY)*ydiff;
+            double q = (startSquared + ax[k]*ax[k] + ay[k]*ay[k] - 2*startX*ax[k] - 2*startY*ay[k] - epsilonSquared) * divisor;
+            store(b, q, divisor, result, offset + 2 * (k - from));
+        }
+        checkDivisors(sx, sy, s, s + 1);
+    }
+
+    //Single boundary: segment s -> s+1 against the point (ax, ay)
+    static void solve(double[] sx, double[] sy, int s, double ax, double ay, double epsilon, double[] result, int offset) {
+        scalarPointAgainstSegments(ax, ay, sx, sy, s, s + 1, epsilon, result, offset);
+    }
+
+    //The same two loops without epsilon: b, divisor and the squared distance term of q for every boundary.
+    //threshold then turns them into (t1, t2) pairs for any epsilon with no geometry left to compute.
+    static void measurePointAgainstSegments(double ax, double ay, double[] sx, double[] sy, int from, int to, double[] b, double[] distance, double[] divisor, int offset) {
+        for (int k = from; k < to; k++) {
+            double startX = sx[k];
+            double startY = sy[k];
+            double xdiff = sx[k + 1] - startX;
+            double ydiff = sy[k + 1] - startY;
+            int m = offset + k - from;
+            divisor[m] = xdiff*xdiff + ydiff*ydiff;
+            b[m] = (ax - startX)*xdiff + (ay - startY)*ydiff;
+            distance[m] = startX*startX + startY*startY + ax*ax + ay*ay - 2*startX*ax - 2*startY*ay;
+        }
+        checkDivisors(sx, sy, from, to);
+    }
+
+    static void measureSegmentAgainstPoints(double[] sx, double[] sy, int s, double[] ax, double[] ay, int from, int to, double[] b, double[] distance, double[] divisor, int offset) {
+        double startX = sx[s];
+        double startY = sy[s];
+        double xdiff = sx[s + 1] - startX;
+        double ydiff = sy[s + 1] - startY;
+        double segmentDivisor = xdiff*xdiff + ydiff*ydiff;
+        double startSquared = startX*startX + startY*startY;
+        for (int k = from; k < to; k++) {
+            int m = offset + k - from;
+            divisor[m] = segmentDivisor;
+            b[m] = (ax[k] - startX)*xdiff + (ay[k] - startY)*ydiff;
+            distance[m] = startSquared + ax[k]*ax[k] + ay[k]*ay[k] - 2*startX*ax[k] - 2*startY*ay[k];
+        }
+        checkDivisors(sx, sy, s, s + 1);
+    }
+
+    //(t1, t2) pairs at epsilon for the measured boundaries from to to, written to result at 2 * k.
+    //Gives exactly what the loops above give, the terms are grouped the same way.
+    static void threshold(double[] b, double[] distance, double[] divisor, int from, int to, double epsilon, double[] result) {
+        double epsilonSquared = epsilon*epsilon;
+        for (int k = from; k < to; k++) {
+            store(b[k], (distance[k] - epsilonSquared) * divisor[k], divisor[k], result, 2 * k);
+        }
+    }
+
+    //Solves for t1 and t2 and clamps them to [0, 1]
+    private static void store(double b, double q, double divisor, double[] result, int offset) {
+        double root = b*b - q;
+        //all black
+        boolean black = root < 0;
+        root = Math.sqrt(black ? 0 : root);
+        double t2 = (b + root)/divisor;
+        double t1 = (b - root)/divisor;
+        if (t1 < 0) t1 = 0;
+        if (t2 < 0) t2 = 0;
+        if (t1 > 1) t1 = 1;
+        if (t2 > 1) t2 = 1;
+        result[offset] = black ? 0 : t1;
+        result[offset + 1] = black ? 0 : t2;
+    }
+
+    //kept out of the arithmetic loops so they stay branch free
+    static void checkDivisors(double[] sx, double[] sy, int from, int to) {
+        for (int k = from; k < to; k++) {
+            double xdiff = sx[k + 1] - sx[k];
+            double ydiff = sy[k + 1] - sy[k];
+            if (xdiff*xdiff + ydiff*ydiff == 0) {
+                System.out.println("Error calculating free space for cell: Divisor = 0");
+            }
+        }
+    }
+}
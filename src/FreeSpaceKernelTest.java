@@ -0,0 +1,158 @@
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+public class FreeSpaceKernelTest {
+
+    //compares a (t1, t2) pair from the kernel with the interval freeSpaceForSegment returns
+    private void assertSameBoundary(Interval expected, double t1, double t2, double offset, boolean horizontal) {
+        if (expected == null) {
+            Assert.assertTrue(t1 == t2);
+        } else if (horizontal) {
+            Assert.assertEquals(expected.startGraph.x, t1 + offset, 0.0);
+            Assert.assertEquals(expected.endGraph.x, t2 + offset, 0.0);
+        } else {
+            Assert.assertEquals(expected.startGraph.y, t1 + offset, 0.0);
+            Assert.assertEquals(expected.endGraph.y, t2 + offset, 0.0);
+        }
+    }
+
+    //the scalar loops, and the vector ones when they are built in, whether they are switched on or not
+    private ArrayList<FreeSpaceKernel.Lines> kernels() {
+        ArrayList<FreeSpaceKernel.Lines> kernels = new ArrayList<FreeSpaceKernel.Lines>();
+        kernels.add(FreeSpaceKernel.SCALAR_LINES);
+        if (FreeSpaceKernel.loadVectorLines() != null) {
+            kernels.add(FreeSpaceKernel.loadVectorLines());
+        }
+        return kernels;
+    }
+
+    @Test
+    public void testPointAgainstSegments() throws Exception {
+        Random random = new Random(7);
+        Point2D.Double[] polyP = TestPolygons.randomPolygon(random, 9);
+        Point2D.Double[] polyQ = TestPolygons.randomPolygon(random, 13);
+        double[] qx = new double[polyQ.length];
+        double[] qy = new double[polyQ.length];
+        FreeSpaceKernel.copyCoordinates(polyQ, qx, qy);
+
+        for (FreeSpaceKernel.Lines kernel : kernels()) {
+            for (double epsilon : new double[]{0.1, 0.5, 1.0, 3.0}) {
+                for (int i = 0; i < polyP.length; i++) {
+                    double[] result = new double[2 * (polyQ.length - 1)];
+                    kernel.pointAgainstSegments(polyP[i].x, polyP[i].y, qx, qy, 0, polyQ.length - 1, epsilon, result, 0);
+                    for (int j = 0; j < polyQ.length - 1; j++) {
+                        Interval expected = ReachabilityStructure.freeSpaceForSegment(null, polyQ[j], polyQ[j+1], polyP[i], i, j, false, i, j, epsilon);
+                        assertSameBoundary(expected, result[2 * j], result[2 * j + 1], j, false);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSegmentAgainstPoints() throws Exception {
+        Random random = new Random(11);
+        Point2D.Double[] polyP = TestPolygons.randomPolygon(random, 9);
+        Point2D.Double[] polyQ = TestPolygons.randomPolygon(random, 13);
+        double[] px = new double[polyP.length];
+        double[] py = new double[polyP.length];
+        double[] qx = new double[polyQ.length];
+        double[] qy = new double[polyQ.length];
+        FreeSpaceKernel.copyCoordinates(polyP, px, py);
+        FreeSpaceKernel.copyCoordinates(polyQ, qx, qy);
+
+        for (FreeSpaceKernel.Lines kernel : kernels()) {
+            for (double epsilon : new double[]{0.1, 0.5, 1.0, 3.0}) {
+                for (int i = 0; i < polyP.length - 1; i++) {
+                    double[] result = new double[2 * polyQ.length];
+                    kernel.segmentAgainstPoints(px, py, i, qx, qy, 0, polyQ.length, epsilon, result, 0);
+                    for (int j = 0; j < polyQ.length; j++) {
+                        Interval expected = ReachabilityStructure.freeSpaceForSegment(null, polyP[i], polyP[i+1], polyQ[j], i, j, true, i, j, epsilon);
+                        assertSameBoundary(expected, result[2 * j], result[2 * j + 1], i, true);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testVectorMatchesScalar() throws Exception {
+        FreeSpaceKernel.Lines vectorLines = FreeSpaceKernel.loadVectorLines();
+        if (vectorLines == null) {
+            return;
+        }
+        //odd ranges, so there is a scalar tail, and the raw pairs, so every bit has to match
+        Random random = new Random(13);
+        Point2D.Double[] polyP = TestPolygons.randomPolygon(random, 10);
+        Point2D.Double[] polyQ = TestPolygons.randomPolygon(random, 31);
+        double[] px = new double[polyP.length];
+        double[] py = new double[polyP.length];
+        double[] qx = new double[polyQ.length];
+        double[] qy = new double[polyQ.length];
+        FreeSpaceKernel.copyCoordinates(polyP, px, py);
+        FreeSpaceKernel.copyCoordinates(polyQ, qx, qy);
+
+        for (double epsilon : new double[]{0.1, 0.5, 1.0, 3.0}) {
+            for (int i = 0; i < polyP.length - 1; i++) {
+                double[] scalar = new double[2 * polyQ.length + 2];
+                double[] vector = new double[2 * polyQ.length + 2];
+                FreeSpaceKernel.scalarPointAgainstSegments(px[i], py[i], qx, qy, 1, polyQ.length - 1, epsilon, scalar, 2);
+                vectorLines.pointAgainstSegments(px[i], py[i], qx, qy, 1, polyQ.length - 1, epsilon, vector, 2);
+                Assert.assertTrue(Arrays.equals(scalar, vector));
+
+                FreeSpaceKernel.scalarSegmentAgainstPoints(px, py, i, qx, qy, 1, polyQ.length, epsilon, scalar, 0);
+                vectorLines.segmentAgainstPoints(px, py, i, qx, qy, 1, polyQ.length, epsilon, vector, 0);
+                Assert.assertTrue(Arrays.equals(scalar, vector));
+            }
+        }
+    }
+
+    @Test
+    public void testDoubledFreeSpace() throws Exception {
+        //the stored half of a doubled P has to give the same boundaries as computing every column
+        Random random = new Random(3);
+        Point2D.Double[] polyP = TestPolygons.randomPolygon(random, 6);
+        Point2D.Double[] polyQ = TestPolygons.randomPolygon(random, 5);
+        Point2D.Double[] borderP = new Point2D.Double[polyP.length * 2];
+        System.arraycopy(polyP, 0, borderP, 0, polyP.length);
+        System.arraycopy(polyP, 0, borderP, polyP.length, polyP.length);
+
+        FreeSpace freeSpace = new FreeSpace(borderP, polyQ, 0.8, true, polyP.length, null);
+        for (int i = 0; i < borderP.length; i++) {
+            for (int j = 0; j < polyQ.length - 1; j++) {
+                Interval expected = ReachabilityStructure.freeSpaceForSegment(null, polyQ[j], polyQ[j+1], borderP[i], i, j, false, i, j, 0.8);
+                Assert.assertEquals(expected, freeSpace.verticalInterval(i, j));
+            }
+        }
+        for (int i = 0; i < borderP.length - 1; i++) {
+            for (int j = 0; j < polyQ.length; j++) {
+                Interval expected = ReachabilityStructure.freeSpaceForSegment(null, borderP[i], borderP[i+1], polyQ[j], i, j, true, i, j, 0.8);
+                Assert.assertEquals(expected, freeSpace.horizontalInterval(i, j));
+            }
+        }
+    }
+
+    @Test
+    public void testFreeSpaceFromGeometry() throws Exception {
+        //slicing the measured geometry at an epsilon has to give exactly the free space computed from the polygons
+        Random random = new Random(5);
+        Point2D.Double[] polyP = TestPolygons.randomPolygon(random, 7);
+        Point2D.Double[] polyQ = TestPolygons.randomPolygon(random, 6);
+        FreeSpaceGeometry geometry = ReachabilityStructure.geometryFor(polyP, polyQ, null);
+        Point2D.Double[] borderP = ReachabilityStructure.doubled(polyP);
+
+        for (double epsilon : new double[]{0.1, 0.5, 1.0, 3.0}) {
+            FreeSpace expected = new FreeSpace(borderP, polyQ, epsilon, true, polyP.length, null);
+            FreeSpace sliced = new FreeSpace(geometry, epsilon, null);
+            Assert.assertTrue(Arrays.equals(expected.vertical, sliced.vertical));
+            Assert.assertTrue(Arrays.equals(expected.horizontal, sliced.horizontal));
+            Assert.assertEquals(expected.columns, sliced.columns);
+            Assert.assertEquals(expected.rows, sliced.rows);
+        }
+    }
+}
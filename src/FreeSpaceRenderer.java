@@ -0,0 +1,149 @@
+import net.sf.epsgraphics.ColorMode;
+import net.sf.epsgraphics.EpsGraphics;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+//Draws the free-space diagram of a ReachabilityStructure, with paths on top, to EPS or to PNG tiles.
+//Structures don't draw anything themselves, so this is only needed when a picture is wanted.
+//The arrows of the diagram are rebuilt one column at a time from the free space while drawing, so they are never all
+//held at once. EpsGraphics writes each line to its stream as it is drawn, and a PNG is cut into tiles of bounded
+//size that are written one after the other, each to its own file.
+public class FreeSpaceRenderer {
+    static final int CELL_SIZE = 100;
+    static final int MARGIN = 5;
+    static final int DEFAULT_TILE_SIZE = 2048;
+    //the free intervals are white, so PNGs get a background they show up on
+    static final Color PNG_BACKGROUND = Color.lightGray;
+
+    ReachabilityStructure structure;
+
+    public FreeSpaceRenderer(ReachabilityStructure structure) {
+        this.structure = structure;
+    }
+
+    public int getWidth() {
+        return (structure.borderPolyP.length - 1) * CELL_SIZE + 2 * MARGIN;
+    }
+
+    public int getHeight() {
+        return (structure.borderPolyQ.length - 1) * CELL_SIZE + 2 * MARGIN;
+    }
+
+    public void writeEps(String filename, List<Point2D.Double[]> paths) {
+        try {
+            FileOutputStream image = new FileOutputStream(filename, false);
+            try {
+                writeEps(filename, image, paths);
+            } finally {
+                image.close();
+            }
+        } catch (IOException e) {
+            System.out.println("ERROR: " + e.toString());
+        }
+    }
+
+    public void writeEps(String title, OutputStream out, List<Point2D.Double[]> paths) throws IOException {
+        EpsGraphics g = new EpsGraphics(title, out, 0, 0, getWidth(), getHeight(), ColorMode.COLOR_RGB);
+        draw(g, new Rectangle(0, 0, getWidth(), getHeight()), paths);
+        g.close();
+    }
+
+    public int writePng(String prefix, List<Point2D.Double[]> paths) throws IOException {
+        return writePng(prefix, DEFAULT_TILE_SIZE, paths);
+    }
+
+    //Writes the diagram as tiles of at most tileSize pixels a side, to prefix_row_column.png with row 0 at the top.
+    //Returns the number of tiles written.
+    public int writePng(String prefix, int tileSize, List<Point2D.Double[]> paths) throws IOException {
+        int width = getWidth();
+        int height = getHeight();
+        BufferedImage tile = new BufferedImage(Math.min(tileSize, width), Math.min(tileSize, height), BufferedImage.TYPE_INT_RGB);
+        int tiles = 0;
+        for (int y = 0, row = 0; y < height; y += tileSize, row++) {
+            for (int x = 0, column = 0; x < width; x += tileSize, column++) {
+                Rectangle area = new Rectangle(x, y, Math.min(tileSize, width - x), Math.min(tileSize, height - y));
+                Graphics2D g = tile.createGraphics();
+                g.setColor(PNG_BACKGROUND);
+                g.fillRect(0, 0, tile.getWidth(), tile.getHeight());
+                g.translate(-x, -y);
+                g.clipRect(x, y, area.width, area.height);
+                draw(g, area, paths);
+                g.dispose();
+
+                BufferedImage image = tile;
+                if (area.width < tile.getWidth() || area.height < tile.getHeight()) {
+                    image = tile.getSubimage(0, 0, area.width, area.height);
+                }
+                ImageIO.write(image, "png", new File(prefix + "_" + row + "_" + column + ".png"));
+                tiles++;
+            }
+        }
+        return tiles;
+    }
+
+    //Grid, free intervals and paths, skipping the columns of cells that are outside area
+    void draw(Graphics g, Rectangle area, List<Point2D.Double[]> paths) {
+        int columns = structure.borderPolyP.length - 1;
+        int rows = structure.borderPolyQ.length - 1;
+        int height = rows * CELL_SIZE;
+
+        g.setColor(Color.black);
+        for (int i = 0; i <= columns; i++) {
+            g.drawLine(MARGIN + i * CELL_SIZE, MARGIN, MARGIN + i * CELL_SIZE, height + MARGIN);
+        }
+        for (int j = 0; j <= rows; j++) {
+            g.drawLine(MARGIN, MARGIN + j * CELL_SIZE, columns * CELL_SIZE + MARGIN, MARGIN + j * CELL_SIZE);
+        }
+
+        //the merged base layer has lost its cells, so the arrows are rebuilt from its free space
+        FreeSpace freeSpace = structure.baseLayer.freeSpace;
+        int firstColumn = Math.max(0, (area.x - MARGIN) / CELL_SIZE - 1);
+        int lastColumn = Math.min(freeSpace.columns - 1, (area.x + area.width - MARGIN) / CELL_SIZE);
+        g.setColor(Color.white);
+        for (int i = firstColumn; i <= lastColumn; i++) {
+            ArrayList<Set<Arrow>> column = structure.createBaseColumn(freeSpace, i);
+            for (Set<Arrow> cell : column) {
+                if (cell != null) {
+                    for (Arrow arrow : cell) {
+                        if (!arrow.isNull()) {
+                            drawInterval(g, arrow.start, height);
+                            drawInterval(g, arrow.end, height);
+                        }
+                    }
+                }
+            }
+        }
+
+        //every path gets the next hue, starting from red
+        float hue = 0;
+        for (Point2D.Double[] path : paths) {
+            hue += 0.1f;
+            g.setColor(Color.getHSBColor(hue, 1, 1));
+            for (int k = 0; k < path.length - 1; k++) {
+                g.drawLine(toX(path[k].x), toY(path[k].y, height), toX(path[k + 1].x), toY(path[k + 1].y, height));
+            }
+        }
+    }
+
+    private static void drawInterval(Graphics g, Interval interval, int height) {
+        g.drawLine(toX(interval.startGraph.x), toY(interval.startGraph.y, height), toX(interval.endGraph.x), toY(interval.endGraph.y, height));
+    }
+
+    private static int toX(double x) {
+        return (int) (x * CELL_SIZE) + MARGIN;
+    }
+
+    private static int toY(double y, int height) {
+        return height - (int) (y * CELL_SIZE) + MARGIN;
+    }
+}
@@ -0,0 +1,41 @@
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.awt.*;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import javax.imageio.ImageIO;
+
+public class FreeSpaceRendererTest {
+
+    @Test
+    public void testPngTiles() throws Exception {
+        ReachabilityStructure structure = new ReachabilityStructure(TestPolygons.square(0), TestPolygons.square(0.1), 10);
+        FreeSpaceRenderer renderer = new FreeSpaceRenderer(structure);
+        //7 columns and 3 rows of cells
+        Assert.assertEquals(710, renderer.getWidth());
+        Assert.assertEquals(310, renderer.getHeight());
+
+        File directory = File.createTempFile("fsd", "");
+        directory.delete();
+        directory.mkdir();
+        String prefix = new File(directory, "tile").getPath();
+        Assert.assertEquals(6, renderer.writePng(prefix, 256, new ArrayList<Point2D.Double[]>()));
+
+        BufferedImage first = ImageIO.read(new File(prefix + "_0_0.png"));
+        BufferedImage last = ImageIO.read(new File(prefix + "_1_2.png"));
+        Assert.assertEquals(256, first.getWidth());
+        Assert.assertEquals(710 - 512, last.getWidth());
+        Assert.assertEquals(310 - 256, last.getHeight());
+        //everything is free at this epsilon: the cell boundaries are white, the inside of a cell is background
+        Assert.assertEquals(Color.white.getRGB(), first.getRGB(5, 55));
+        Assert.assertEquals(FreeSpaceRenderer.PNG_BACKGROUND.getRGB(), first.getRGB(55, 55));
+
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+}
@@ -0,0 +1,281 @@
+import org.poly2tri.Poly2Tri;
+import org.poly2tri.geometry.polygon.Polygon;
+import org.poly2tri.geometry.polygon.PolygonPoint;
+import org.poly2tri.triangulation.delaunay.DelaunayTriangle;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+//Geodesic (shortest) paths inside a simple polygon, on a triangulation that is computed once.
+//A query finds the triangles of the two points, walks the dual tree between them to get the sleeve of triangles
+//the path has to pass through, and pulls the path tight through the shared edges of the sleeve with the funnel
+//algorithm (Lee and Preparata). Both steps are linear in the number of triangles.
+//Queries do not change anything, so they can run concurrently, except when the fallback below is in use.
+//If the polygon cannot be triangulated, or a point is not inside any triangle, the path comes from a VisibilityGraph.
+public class GeodesicOracle {
+    static final double TOLERANCE = 0.00000000001;
+
+    Point2D.Double[] poly;
+    double[] xs;
+    double[] ys;
+
+    //vertex indices of each triangle, null if there is no triangulation
+    int[][] triangles;
+    //neighbours[t][e] is the triangle across edge e of t (from vertex e to vertex e+1), -1 on the boundary
+    int[][] neighbours;
+
+    private VisibilityGraph fallback;
+
+    public GeodesicOracle(Point2D.Double[] poly) {
+        this(poly, triangulate(poly));
+    }
+
+    //With a triangulation given as triples of vertex indices, null to always use the fallback
+    GeodesicOracle(Point2D.Double[] poly, int[][] triangles) {
+        this.poly = poly;
+        xs = new double[poly.length];
+        ys = new double[poly.length];
+        FreeSpaceKernel.copyCoordinates(poly, xs, ys);
+        if (triangles == null || triangles.length == 0) {
+            return;
+        }
+        this.triangles = triangles;
+
+        neighbours = new int[triangles.length][3];
+        HashMap<Long, Integer> open = new HashMap<Long, Integer>();
+        for (int t = 0; t < triangles.length; t++) {
+            for (int e = 0; e < 3; e++) {
+                neighbours[t][e] = -1;
+                int a = triangles[t][e];
+                int b = triangles[t][(e + 1) % 3];
+                Long key = (long) Math.min(a, b) * poly.length + Math.max(a, b);
+                Integer other = open.remove(key);
+                if (other == null) {
+                    open.put(key, t * 3 + e);
+                } else {
+                    neighbours[t][e] = other / 3;
+                    neighbours[other / 3][other % 3] = t;
+                }
+            }
+        }
+    }
+
+    //Triangles of poly from Poly2Tri as vertex indices, null if it fails
+    static int[][] triangulate(Point2D.Double[] poly) {
+        HashMap<Point2D.Double, Integer> indices = new HashMap<Point2D.Double, Integer>();
+        ArrayList<PolygonPoint> points = new ArrayList<PolygonPoint>();
+        for (int k = 0; k < poly.length; k++) {
+            indices.put(poly[k], k);
+            points.add(new PolygonPoint(poly[k].x, poly[k].y));
+        }
+        try {
+            Polygon converted = new Polygon(points);
+            Poly2Tri.triangulate(converted);
+            List<DelaunayTriangle> triangulation = converted.getTriangles();
+            int[][] result = new int[triangulation.size()][3];
+            for (int t = 0; t < result.length; t++) {
+                for (int k = 0; k < 3; k++) {
+                    DelaunayTriangle triangle = triangulation.get(t);
+                    Integer index = indices.get(new Point2D.Double(triangle.points[k].getX(), triangle.points[k].getY()));
+                    if (index == null) {
+                        //Poly2Tri added a point of its own, the triangles don't match the polygon
+                        return null;
+                    }
+                    result[t][k] = index;
+                }
+            }
+            return result;
+        } catch (RuntimeException e) {
+            System.out.println("ERROR: " + e.toString());
+            return null;
+        }
+    }
+
+    //Shortest path from start to end inside the polygon, null if there is none.
+    //Starts with start and ends with end, the points in between are polygon vertices.
+    public Point2D.Double[] shortestPath(Point2D.Double start, Point2D.Double end) {
+        int[] sleeve = triangles == null ? null : sleeve(start, end);
+        if (sleeve == null) {
+            if (fallback == null) {
+                fallback = new VisibilityGraph(poly);
+            }
+            return fallback.shortestPath(start, end);
+        }
+        return funnel(start, end, sleeve);
+    }
+
+    //Triangles from one containing start to one containing end, along the dual tree.
+    //Of the triangles around a vertex the ones closest to the other point are taken, so the sleeve is as short as it gets.
+    int[] sleeve(Point2D.Double start, Point2D.Double end) {
+        int endTriangle = -1;
+        for (int t = 0; t < triangles.length && endTriangle < 0; t++) {
+            if (contains(t, end.x, end.y)) {
+                endTriangle = t;
+            }
+        }
+        if (endTriangle < 0) {
+            return null;
+        }
+
+        //search from the end until a triangle with start in it is found
+        int[] parent = new int[triangles.length];
+        Arrays.fill(parent, -2);
+        parent[endTriangle] = -1;
+        ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+        queue.add(endTriangle);
+        int startTriangle = -1;
+        while (!queue.isEmpty()) {
+            int t = queue.poll();
+            if (contains(t, start.x, start.y)) {
+                startTriangle = t;
+                break;
+            }
+            for (int e = 0; e < 3; e++) {
+                int next = neighbours[t][e];
+                if (next >= 0 && parent[next] == -2) {
+                    parent[next] = t;
+                    queue.add(next);
+                }
+            }
+        }
+        if (startTriangle < 0) {
+            return null;
+        }
+
+        //parents lead from start back to the end, stop at the first triangle that already has end in it
+        ArrayList<Integer> path = new ArrayList<Integer>();
+        for (int t = startTriangle; t >= 0; t = parent[t]) {
+            path.add(t);
+            if (contains(t, end.x, end.y)) {
+                break;
+            }
+        }
+        int[] result = new int[path.size()];
+        for (int k = 0; k < result.length; k++) {
+            result[k] = path.get(k);
+        }
+        return result;
+    }
+
+    //Pulls the path tight through the edges shared by consecutive triangles of the sleeve
+    Point2D.Double[] funnel(Point2D.Double start, Point2D.Double end, int[] sleeve) {
+        //portals as (left, right) seen walking along the sleeve, with start and end as portals of their own
+        int portals = sleeve.length + 1;
+        double[] leftX = new double[portals];
+        double[] leftY = new double[portals];
+        double[] rightX = new double[portals];
+        double[] rightY = new double[portals];
+        leftX[0] = rightX[0] = start.x;
+        leftY[0] = rightY[0] = start.y;
+        for (int k = 0; k + 1 < sleeve.length; k++) {
+            int t = sleeve[k];
+            int e = 0;
+            while (neighbours[t][e] != sleeve[k + 1]) {
+                e++;
+            }
+            int u = triangles[t][e];
+            int v = triangles[t][(e + 1) % 3];
+            int w = triangles[t][(e + 2) % 3];
+            //seen from the vertex behind the edge, the counterclockwise end of the edge is on the left
+            if (cross(xs[w], ys[w], xs[u], ys[u], xs[v], ys[v]) > 0) {
+                int swap = u;
+                u = v;
+                v = swap;
+            }
+            leftX[k + 1] = xs[u];
+            leftY[k + 1] = ys[u];
+            rightX[k + 1] = xs[v];
+            rightY[k + 1] = ys[v];
+        }
+        leftX[portals - 1] = rightX[portals - 1] = end.x;
+        leftY[portals - 1] = rightY[portals - 1] = end.y;
+
+        ArrayList<Point2D.Double> path = new ArrayList<Point2D.Double>();
+        path.add(start);
+        double apexX = start.x;
+        double apexY = start.y;
+        double funnelLeftX = start.x;
+        double funnelLeftY = start.y;
+        double funnelRightX = start.x;
+        double funnelRightY = start.y;
+        int apexIndex = 0;
+        int leftIndex = 0;
+        int rightIndex = 0;
+        for (int k = 1; k < portals; k++) {
+            //right side: moves in if the new right point is not right of the current one
+            if (cross(apexX, apexY, funnelRightX, funnelRightY, rightX[k], rightY[k]) >= 0) {
+                if (same(apexX, apexY, funnelRightX, funnelRightY) || cross(apexX, apexY, funnelLeftX, funnelLeftY, rightX[k], rightY[k]) < 0) {
+                    funnelRightX = rightX[k];
+                    funnelRightY = rightY[k];
+                    rightIndex = k;
+                } else {
+                    //right crosses over left: the left point is a corner of the path
+                    apexX = funnelLeftX;
+                    apexY = funnelLeftY;
+                    apexIndex = leftIndex;
+                    addCorner(path, apexX, apexY);
+                    funnelLeftX = funnelRightX = apexX;
+                    funnelLeftY = funnelRightY = apexY;
+                    leftIndex = rightIndex = apexIndex;
+                    k = apexIndex;
+                    continue;
+                }
+            }
+            //left side, the same the other way round
+            if (cross(apexX, apexY, funnelLeftX, funnelLeftY, leftX[k], leftY[k]) <= 0) {
+                if (same(apexX, apexY, funnelLeftX, funnelLeftY) || cross(apexX, apexY, funnelRightX, funnelRightY, leftX[k], leftY[k]) > 0) {
+                    funnelLeftX = leftX[k];
+                    funnelLeftY = leftY[k];
+                    leftIndex = k;
+                } else {
+                    apexX = funnelRightX;
+                    apexY = funnelRightY;
+                    apexIndex = rightIndex;
+                    addCorner(path, apexX, apexY);
+                    funnelLeftX = funnelRightX = apexX;
+                    funnelLeftY = funnelRightY = apexY;
+                    leftIndex = rightIndex = apexIndex;
+                    k = apexIndex;
+                }
+            }
+        }
+        if (same(path.get(path.size() - 1).x, path.get(path.size() - 1).y, end.x, end.y) && path.size() > 1) {
+            path.remove(path.size() - 1);
+        }
+        path.add(end);
+        return path.toArray(new Point2D.Double[path.size()]);
+    }
+
+    private void addCorner(ArrayList<Point2D.Double> path, double x, double y) {
+        Point2D.Double last = path.get(path.size() - 1);
+        if (!same(last.x, last.y, x, y)) {
+            path.add(new Point2D.Double(x, y));
+        }
+    }
+
+    //Inside or on the border of triangle t
+    boolean contains(int t, double x, double y) {
+        int a = triangles[t][0];
+        int b = triangles[t][1];
+        int c = triangles[t][2];
+        double area = cross(xs[a], ys[a], xs[b], ys[b], xs[c], ys[c]);
+        double sign = area >= 0 ? 1 : -1;
+        double tolerance = TOLERANCE * Math.max(1, Math.abs(area));
+        return sign * cross(xs[a], ys[a], xs[b], ys[b], x, y) >= -tolerance &&
+                sign * cross(xs[b], ys[b], xs[c], ys[c], x, y) >= -tolerance &&
+                sign * cross(xs[c], ys[c], xs[a], ys[a], x, y) >= -tolerance;
+    }
+
+    //Positive if (bx, by) is left of the line from (ox, oy) to (ax, ay)
+    private static double cross(double ox, double oy, double ax, double ay, double bx, double by) {
+        return (ax - ox) * (by - oy) - (ay - oy) * (bx - ox);
+    }
+
+    private static boolean same(double ax, double ay, double bx, double by) {
+        return Math.abs(ax - bx) <= TOLERANCE && Math.abs(ay - by) <= TOLERANCE;
+    }
+}
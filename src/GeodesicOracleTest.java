@@ -0,0 +1,71 @@
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+
+public class GeodesicOracleTest {
+
+    private int[][] uTriangles() {
+        return new int[][]{{0, 1, 5}, {1, 4, 5}, {1, 2, 4}, {2, 3, 4}, {0, 5, 6}, {0, 6, 7}};
+    }
+
+    private void assertPath(Point2D.Double[] expected, Point2D.Double[] path) {
+        Assert.assertEquals(expected.length, path.length);
+        for (int k = 0; k < path.length; k++) {
+            Assert.assertEquals(expected[k].x, path[k].x, 1e-12);
+            Assert.assertEquals(expected[k].y, path[k].y, 1e-12);
+        }
+    }
+
+    @Test
+    public void testAroundTheNotch() throws Exception {
+        GeodesicOracle oracle = new GeodesicOracle(TestPolygons.uShape(), uTriangles());
+        Point2D.Double start = new Point2D.Double(0, 2.5);
+        Point2D.Double end = new Point2D.Double(3, 2.5);
+
+        assertPath(new Point2D.Double[]{start, new Point2D.Double(1, 1), new Point2D.Double(2, 1), end}, oracle.shortestPath(start, end));
+        assertPath(new Point2D.Double[]{end, new Point2D.Double(2, 1), new Point2D.Double(1, 1), start}, oracle.shortestPath(end, start));
+    }
+
+    @Test
+    public void testStraightLines() throws Exception {
+        GeodesicOracle oracle = new GeodesicOracle(TestPolygons.uShape(), uTriangles());
+        Assert.assertEquals(2, oracle.shortestPath(new Point2D.Double(0, 0.5), new Point2D.Double(3, 0.5)).length);
+        Assert.assertEquals(2, oracle.shortestPath(new Point2D.Double(0, 0), new Point2D.Double(3, 0)).length);
+        Assert.assertEquals(2, oracle.shortestPath(new Point2D.Double(0.5, 2), new Point2D.Double(0.5, 2.5)).length);
+    }
+
+    @Test
+    public void testMatchesVisibilityGraph() throws Exception {
+        //every pair of vertices and edge midpoints
+        Point2D.Double[] poly = TestPolygons.uShape();
+        GeodesicOracle oracle = new GeodesicOracle(poly, uTriangles());
+        VisibilityGraph graph = new VisibilityGraph(poly);
+        Point2D.Double[] points = new Point2D.Double[2 * poly.length];
+        for (int k = 0; k < poly.length; k++) {
+            Point2D.Double next = poly[(k + 1) % poly.length];
+            points[2 * k] = poly[k];
+            points[2 * k + 1] = new Point2D.Double((poly[k].x + next.x) / 2, (poly[k].y + next.y) / 2);
+        }
+        for (Point2D.Double a : points) {
+            for (Point2D.Double b : points) {
+                Assert.assertEquals(length(graph.shortestPath(a, b)), length(oracle.shortestPath(a, b)), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testFallback() throws Exception {
+        //without a triangulation the visibility graph answers
+        GeodesicOracle oracle = new GeodesicOracle(TestPolygons.uShape(), null);
+        Assert.assertEquals(4, oracle.shortestPath(new Point2D.Double(0, 2.5), new Point2D.Double(3, 2.5)).length);
+    }
+
+    private double length(Point2D.Double[] path) {
+        double length = 0;
+        for (int k = 0; k + 1 < path.length; k++) {
+            length += path[k].distance(path[k + 1]);
+        }
+        return length;
+    }
+}
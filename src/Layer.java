@@ -7,9 +7,9 @@ public class Layer {
     //two dimensional array of sets of arrows, corresponding to each cell of the FSD
     ArrayList<ArrayList<Set<Arrow>>> arrows;
 
-    public Layer(Layer another) {
-        this.arrows = new ArrayList<ArrayList<Set<Arrow>>>(another.arrows);
-    }
+    //free space the arrows of the base layer were built from
+    FreeSpace freeSpace;
+
     public Layer() {
         this.arrows = new ArrayList<ArrayList<Set<Arrow>>>();
     }
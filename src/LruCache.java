@@ -0,0 +1,61 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//Map of bounded size that drops the least recently used entry when it is full, and counts how it is used.
+//get and put are synchronized, so one cache can serve several threads.
+public class LruCache<K, V> {
+    private final LinkedHashMap<K, V> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public LruCache(final int capacity) {
+        //access order, so the eldest entry is the least recently used one
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    //null on a miss, so null values can't be told apart and shouldn't be stored
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "hits: " + hits + ", misses: " + misses + ", evictions: " + evictions + ", size: " + entries.size();
+    }
+}
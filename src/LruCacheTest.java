@@ -0,0 +1,38 @@
+import junit.framework.Assert;
+import org.junit.Test;
+
+public class LruCacheTest {
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        LruCache<String, Integer> cache = new LruCache<String, Integer>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        //reading a makes b the least recently used
+        Assert.assertEquals(Integer.valueOf(1), cache.get("a"));
+        cache.put("c", 3);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.get("b"));
+        Assert.assertEquals(Integer.valueOf(1), cache.get("a"));
+        Assert.assertEquals(Integer.valueOf(3), cache.get("c"));
+        Assert.assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void testCountsHitsAndMisses() {
+        LruCache<String, Integer> cache = new LruCache<String, Integer>(4);
+        Assert.assertNull(cache.get("a"));
+        cache.put("a", 1);
+        cache.get("a");
+        cache.get("a");
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    public void testQuantize() {
+        Assert.assertEquals(ReachabilityStructure.quantize(0.5), ReachabilityStructure.quantize(0.5 + 1e-12));
+        Assert.assertFalse(ReachabilityStructure.quantize(0.5) == ReachabilityStructure.quantize(0.5 + 1e-8));
+    }
+}
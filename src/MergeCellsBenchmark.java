@@ -0,0 +1,61 @@
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Set;
+
+//Times merging the cells of every column of the base layer, with the pairwise loop and with the ArrowIndex lookup.
+//Usage: java MergeCellsBenchmark [points of P] [points of Q] [epsilon] [runs]
+public class MergeCellsBenchmark {
+
+    //merges a fresh copy of the base layer and returns the merged columns
+    static ArrayList<Set<Arrow>> mergeAll(ReachabilityStructure structure, boolean indexed) {
+        Layer base = structure.createBaseLayer(structure.borderPolyP, structure.borderPolyQ, structure._epsilon, false);
+        structure.indexedJoins = indexed;
+        ArrayList<Set<Arrow>> merged = new ArrayList<Set<Arrow>>();
+        for (int i = 0; i < base.arrows.size(); i++) {
+            structure.mergeCellsIntoColumn(base.arrows.get(i), base.freeSpace, i);
+            merged.add(base.arrows.get(i).get(0));
+        }
+        return merged;
+    }
+
+    public static void main(String[] args) {
+        int pLength = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        int qLength = args.length > 1 ? Integer.parseInt(args[1]) : 24;
+        double epsilon = args.length > 2 ? Double.parseDouble(args[2]) : 0.6;
+        int runs = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        Random random = new Random(1);
+        Point2D.Double[] polyP = TestPolygons.randomPolygon(random, pLength);
+        Point2D.Double[] polyQ = TestPolygons.randomPolygon(random, qLength);
+        ReachabilityStructure structure = new ReachabilityStructure(polyP, polyQ, epsilon);
+
+        //warm up both paths and check they agree
+        ArrayList<Set<Arrow>> pairwise = mergeAll(structure, false);
+        ArrayList<Set<Arrow>> indexed = mergeAll(structure, true);
+        int arrows = 0;
+        for (int i = 0; i < pairwise.size(); i++) {
+            if (pairwise.get(i) == null ? indexed.get(i) != null : !pairwise.get(i).equals(indexed.get(i))) {
+                System.out.println("ERROR: merged column " + i + " differs between the two joins");
+                return;
+            }
+            arrows += pairwise.get(i) == null ? 0 : pairwise.get(i).size();
+        }
+        System.out.println("P: " + pLength + " Q: " + qLength + " epsilon: " + epsilon + " merged arrows: " + arrows);
+
+        long pairwiseTime = 0;
+        long indexedTime = 0;
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            mergeAll(structure, false);
+            pairwiseTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            mergeAll(structure, true);
+            indexedTime += System.nanoTime() - start;
+        }
+        System.out.println("pairwise: " + (pairwiseTime / runs / 1000000.0) + " ms per build");
+        System.out.println("indexed:  " + (indexedTime / runs / 1000000.0) + " ms per build");
+        System.out.println("speedup:  " + ((double) pairwiseTime / indexedTime));
+    }
+}
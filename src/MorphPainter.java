@@ -0,0 +1,110 @@
+import org.poly2tri.triangulation.delaunay.DelaunayTriangle;
+
+import java.awt.*;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+
+//Draws the polygons, the shortest path, the triangulation and a morph between the polygons onto any Graphics.
+//The plot shows [-2, 2] x [-2, 2] stretched over the given width and height.
+//It only reads its fields, so one painter can draw frames on several threads at once, each with its own Graphics.
+public class MorphPainter {
+    private static final double XMIN = -2;
+    private static final double XMAX = 2;
+    private static final double YMIN = -2;
+    private static final double YMAX = 2;
+    private static final BasicStroke MORPH_STROKE = new BasicStroke(3);
+
+    Point2D.Double[] polyP;
+    Point2D.Double[] polyQ;
+    Point2D.Double[] spPath;
+    ArrayList<DelaunayTriangle> triangulation;
+
+    public MorphPainter(Point2D.Double[] polyP, Point2D.Double[] polyQ, Point2D.Double[] spPath, ArrayList<DelaunayTriangle> triangulation) {
+        this.polyP = polyP;
+        this.polyQ = polyQ;
+        this.spPath = spPath;
+        this.triangulation = triangulation;
+    }
+
+    //Everything on top of whatever background g already has, interpolation may be null
+    public void paint(Graphics g, int width, int height, Point2D.Double[] interpolation) {
+        paintFixed(g, width, height);
+        ((Graphics2D) g).setStroke(MORPH_STROKE);
+        g.setColor(Color.green);
+        if (interpolation != null) {
+            drawPolygon(interpolation, g, width, height);
+        }
+    }
+
+    //Same as above, with the first count points of xs and ys as the interpolation.
+    //Nothing is allocated here, so frames can be drawn from arrays that are reused.
+    public void paint(Graphics g, int width, int height, double[] xs, double[] ys, int count) {
+        paintFixed(g, width, height);
+        ((Graphics2D) g).setStroke(MORPH_STROKE);
+        g.setColor(Color.green);
+        drawPolygon(xs, ys, count, g, width, height);
+    }
+
+    //the parts that are the same in every frame
+    private void paintFixed(Graphics g, int width, int height) {
+        g.setColor(Color.blue);
+        drawPolygon(polyP, g, width, height);
+        g.setColor(Color.red);
+        drawPolygon(polyQ, g, width, height);
+        if (spPath != null) {
+            g.setColor(Color.green);
+            drawPath(spPath, g, width, height);
+        }
+        g.setColor(Color.orange);
+        if (triangulation != null) {
+            for (DelaunayTriangle t : triangulation) {
+                for (int i = 0; i < 3; i++) {
+                    int j = (i + 1) % 3;
+                    g.drawLine(toScreenX(t.points[i].getX(), width), toScreenY(t.points[i].getY(), height), toScreenX(t.points[j].getX(), width), toScreenY(t.points[j].getY(), height));
+                }
+            }
+        }
+    }
+
+    static void drawPolygon(Point2D.Double[] points, Graphics g, int width, int height) {
+        for (int i = 0; i < points.length; i++) {
+            int j = i + 1;
+            if (i == points.length - 1) {
+                j = 0;
+            }
+            g.drawLine(toScreenX(points[i].x, width), toScreenY(points[i].y, height), toScreenX(points[j].x, width), toScreenY(points[j].y, height));
+        }
+    }
+
+    static void drawPolygon(double[] xs, double[] ys, int count, Graphics g, int width, int height) {
+        for (int i = 0; i < count; i++) {
+            int j = i + 1;
+            if (i == count - 1) {
+                j = 0;
+            }
+            g.drawLine(toScreenX(xs[i], width), toScreenY(ys[i], height), toScreenX(xs[j], width), toScreenY(ys[j], height));
+        }
+    }
+
+    static void drawPath(Point2D.Double[] points, Graphics g, int width, int height) {
+        for (int i = 0; i < points.length - 1; i++) {
+            g.drawLine(toScreenX(points[i].x, width), toScreenY(points[i].y, height), toScreenX(points[i + 1].x, width), toScreenY(points[i + 1].y, height));
+        }
+    }
+
+    static double toMathX(int x, int width) {
+        return (x - width / 2) * ((XMAX - XMIN) / width) + ((XMAX + XMIN) / 2);
+    }
+
+    static double toMathY(int y, int height) {
+        return (height / 2 - y) * ((YMAX - YMIN) / height) + ((YMAX + YMIN) / 2);
+    }
+
+    static int toScreenX(double x, int width) {
+        return (int) ((width / 2) + (x - (XMAX + XMIN) / 2) * (width / (XMAX - XMIN)));
+    }
+
+    static int toScreenY(double y, int height) {
+        return (int) ((height / 2) - (y - (YMAX + YMIN) / 2) * (height / (YMAX - YMIN)));
+    }
+}
@@ -0,0 +1,73 @@
+import java.awt.geom.Point2D;
+import java.util.List;
+
+//A morph from P to Q along a matching of the two, ready to produce frames.
+//Every sample of the matching is a point (parameter on P, parameter on Q) of the free-space diagram. Both positions
+//are looked up once here and kept in flat arrays, so the polygon at any fraction is one pass of
+//start + fraction * difference over them, with nothing else computed or allocated per sample.
+//Nothing changes after construction, so frames can be produced on several threads at once.
+public class MorphPath implements AnimationRenderer.Morph {
+    double[] startX;
+    double[] startY;
+    double[] differenceX;
+    double[] differenceY;
+
+    //samples are the matching as (parameter on P, parameter on Q), parameters wrap around the polygons
+    public MorphPath(Point2D.Double[] polyP, Point2D.Double[] polyQ, List<Point2D.Double> samples) {
+        int count = samples.size();
+        startX = new double[count];
+        startY = new double[count];
+        differenceX = new double[count];
+        differenceY = new double[count];
+        double[] end = new double[2];
+        for (int k = 0; k < count; k++) {
+            Point2D.Double sample = samples.get(k);
+            pointAt(polyP, sample.x, end);
+            startX[k] = end[0];
+            startY[k] = end[1];
+            pointAt(polyQ, sample.y, end);
+            differenceX[k] = end[0] - startX[k];
+            differenceY[k] = end[1] - startY[k];
+        }
+    }
+
+    public int size() {
+        return startX.length;
+    }
+
+    //Polygon at fraction, 0 for P and 1 for Q, into xs and ys which need room for size() points
+    public void at(double fraction, double[] xs, double[] ys) {
+        for (int k = 0; k < startX.length; k++) {
+            xs[k] = startX[k] + fraction * differenceX[k];
+            ys[k] = startY[k] + fraction * differenceY[k];
+        }
+    }
+
+    //Same as above, as new points
+    public Point2D.Double[] at(double fraction) {
+        Point2D.Double[] result = new Point2D.Double[startX.length];
+        for (int k = 0; k < result.length; k++) {
+            result[k] = new Point2D.Double(startX[k] + fraction * differenceX[k], startY[k] + fraction * differenceY[k]);
+        }
+        return result;
+    }
+
+    //Frame index of frames, evenly spaced from P (the first) to Q (the last)
+    public void frame(int index, int frames, double[] xs, double[] ys) {
+        at(fraction(index, frames), xs, ys);
+    }
+
+    static double fraction(int index, int frames) {
+        return frames < 2 ? 0 : (double) index / (frames - 1);
+    }
+
+    //Point of poly at parameter, where parameter k + t is the fraction t of the way along edge k to k + 1
+    static void pointAt(Point2D.Double[] poly, double parameter, double[] result) {
+        int startIndex = (int) Math.floor(parameter);
+        double adjustedParameter = parameter - startIndex;
+        startIndex %= poly.length;
+        int endIndex = (startIndex + 1) % poly.length;
+        result[0] = (1 - adjustedParameter) * poly[startIndex].x + adjustedParameter * poly[endIndex].x;
+        result[1] = (1 - adjustedParameter) * poly[startIndex].y + adjustedParameter * poly[endIndex].y;
+    }
+}
@@ -0,0 +1,56 @@
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+
+public class MorphPathTest {
+
+    private static final double DELTA = 1e-12;
+
+    @Test
+    public void testPointAt() {
+        double[] point = new double[2];
+        MorphPath.pointAt(TestPolygons.square(0), 1.25, point);
+        Assert.assertEquals(1.0, point[0], DELTA);
+        Assert.assertEquals(0.25, point[1], DELTA);
+        //parameters wrap around the polygon
+        MorphPath.pointAt(TestPolygons.square(0), 4.5, point);
+        Assert.assertEquals(0.5, point[0], DELTA);
+        Assert.assertEquals(0.0, point[1], DELTA);
+    }
+
+    @Test
+    public void testFrames() {
+        ArrayList<Point2D.Double> samples = new ArrayList<Point2D.Double>();
+        samples.add(new Point2D.Double(0, 0));
+        samples.add(new Point2D.Double(1.5, 2));
+        samples.add(new Point2D.Double(3, 3.5));
+        Point2D.Double[] polyP = TestPolygons.square(0);
+        Point2D.Double[] polyQ = TestPolygons.square(1);
+        MorphPath morph = new MorphPath(polyP, polyQ, samples);
+        Assert.assertEquals(3, morph.size());
+
+        double[] xs = new double[3];
+        double[] ys = new double[3];
+        double[] inP = new double[2];
+        double[] inQ = new double[2];
+        for (int frame = 0; frame < 5; frame++) {
+            double fraction = MorphPath.fraction(frame, 5);
+            morph.frame(frame, 5, xs, ys);
+            Point2D.Double[] points = morph.at(fraction);
+            for (int k = 0; k < 3; k++) {
+                MorphPath.pointAt(polyP, samples.get(k).x, inP);
+                MorphPath.pointAt(polyQ, samples.get(k).y, inQ);
+                Assert.assertEquals((1 - fraction) * inP[0] + fraction * inQ[0], xs[k], DELTA);
+                Assert.assertEquals((1 - fraction) * inP[1] + fraction * inQ[1], ys[k], DELTA);
+                Assert.assertEquals(xs[k], points[k].x);
+                Assert.assertEquals(ys[k], points[k].y);
+            }
+        }
+        //the last frame is Q, sample 1 is its vertex 2
+        Assert.assertEquals(1.0, MorphPath.fraction(4, 5));
+        Assert.assertEquals(2.0, xs[1], DELTA);
+        Assert.assertEquals(2.0, ys[1], DELTA);
+    }
+}
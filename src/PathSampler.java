@@ -0,0 +1,136 @@
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+//Samples of a path through the free-space diagram, for MorphPath.
+//Between two breakpoints, where the path bends or crosses a vertex of P or Q, the positions on P and on Q move
+//linearly along the path, and so does the morph at every fraction. Sampling exactly at the breakpoints therefore
+//draws the same morph as any finer sampling, however the plot is scaled. On top of that, breakpoints whose morph
+//points are within tolerance of the line through their neighbours are dropped (Douglas-Peucker).
+public class PathSampler {
+
+    //Samples of path over polyP and polyQ, path itself is not changed
+    public static ArrayList<Point2D.Double> sample(Point2D.Double[] path, Point2D.Double[] polyP, Point2D.Double[] polyQ, double tolerance) {
+        ArrayList<Point2D.Double> breakpoints = breakpoints(path);
+        int count = breakpoints.size();
+        if (tolerance <= 0 || count < 3) {
+            return breakpoints;
+        }
+
+        double[] p = new double[2 * count];
+        double[] q = new double[2 * count];
+        double[] point = new double[2];
+        for (int k = 0; k < count; k++) {
+            MorphPath.pointAt(polyP, breakpoints.get(k).x, point);
+            p[2 * k] = point[0];
+            p[2 * k + 1] = point[1];
+            MorphPath.pointAt(polyQ, breakpoints.get(k).y, point);
+            q[2 * k] = point[0];
+            q[2 * k + 1] = point[1];
+        }
+        boolean[] keep = new boolean[count];
+        keep[0] = true;
+        keep[count - 1] = true;
+        simplify(p, q, 0, count - 1, tolerance, keep);
+
+        ArrayList<Point2D.Double> samples = new ArrayList<Point2D.Double>();
+        for (int k = 0; k < count; k++) {
+            if (keep[k]) {
+                samples.add(breakpoints.get(k));
+            }
+        }
+        return samples;
+    }
+
+    //Vertices of path, plus every point where it crosses a whole parameter of P (x) or Q (y)
+    static ArrayList<Point2D.Double> breakpoints(Point2D.Double[] path) {
+        ArrayList<Point2D.Double> breakpoints = new ArrayList<Point2D.Double>();
+        if (path.length == 0) {
+            return breakpoints;
+        }
+        breakpoints.add(new Point2D.Double(path[0].x, path[0].y));
+        for (int i = 0; i < path.length - 1; i++) {
+            Point2D.Double from = path[i];
+            Point2D.Double to = path[i + 1];
+            double[] crossings = new double[crossingCount(from.x, to.x) + crossingCount(from.y, to.y)];
+            int count = addCrossings(from.x, to.x, crossings, 0);
+            addCrossings(from.y, to.y, crossings, count);
+            Arrays.sort(crossings);
+            double last = 0;
+            for (double s : crossings) {
+                if (s > last) {
+                    breakpoints.add(new Point2D.Double(from.x + s * (to.x - from.x), from.y + s * (to.y - from.y)));
+                    last = s;
+                }
+            }
+            if (!to.equals(breakpoints.get(breakpoints.size() - 1))) {
+                breakpoints.add(new Point2D.Double(to.x, to.y));
+            }
+        }
+        return breakpoints;
+    }
+
+    //Whole numbers strictly between from and to
+    private static int crossingCount(double from, double to) {
+        double low = Math.min(from, to);
+        double high = Math.max(from, to);
+        return (int) Math.max(0, Math.ceil(high) - Math.floor(low) - 1);
+    }
+
+    //Fractions of the way from from to to of the whole numbers strictly between them, stored from index on
+    private static int addCrossings(double from, double to, double[] crossings, int index) {
+        double low = Math.min(from, to);
+        double high = Math.max(from, to);
+        for (double whole = Math.floor(low) + 1; whole < high; whole++) {
+            crossings[index++] = (whole - from) / (to - from);
+        }
+        return index;
+    }
+
+    //Marks the points between from and to that are needed to stay within tolerance
+    private static void simplify(double[] p, double[] q, int from, int to, double tolerance, boolean[] keep) {
+        int furthest = -1;
+        double largest = tolerance;
+        for (int k = from + 1; k < to; k++) {
+            double deviation = deviation(p, q, from, to, k);
+            if (deviation > largest) {
+                largest = deviation;
+                furthest = k;
+            }
+        }
+        if (furthest >= 0) {
+            keep[furthest] = true;
+            simplify(p, q, from, furthest, tolerance, keep);
+            simplify(p, q, furthest, to, tolerance, keep);
+        }
+    }
+
+    //Bound on how far the morph point of k is from the line between the morph points of from and to, at any fraction.
+    //At a fraction f the morph is (1 - f) * P + f * Q on both the point and the line, so with the point of the line at
+    //the same weight for P and Q it is never further than the larger of the distances on P and on Q.
+    //The weights tried are those of the closest points on P and on Q.
+    private static double deviation(double[] p, double[] q, int from, int to, int k) {
+        double alongP = projection(p, from, to, k);
+        double alongQ = projection(q, from, to, k);
+        return Math.min(Math.max(distance(p, from, to, k, alongP), distance(q, from, to, k, alongP)),
+                Math.max(distance(p, from, to, k, alongQ), distance(q, from, to, k, alongQ)));
+    }
+
+    //Weight of the point of the line between from and to closest to k, between 0 and 1
+    private static double projection(double[] xy, int from, int to, int k) {
+        double dx = xy[2 * to] - xy[2 * from];
+        double dy = xy[2 * to + 1] - xy[2 * from + 1];
+        double length = dx * dx + dy * dy;
+        if (length == 0) {
+            return 0;
+        }
+        double weight = ((xy[2 * k] - xy[2 * from]) * dx + (xy[2 * k + 1] - xy[2 * from + 1]) * dy) / length;
+        return Math.max(0, Math.min(1, weight));
+    }
+
+    private static double distance(double[] xy, int from, int to, int k, double weight) {
+        double x = xy[2 * from] + weight * (xy[2 * to] - xy[2 * from]);
+        double y = xy[2 * from + 1] + weight * (xy[2 * to + 1] - xy[2 * from + 1]);
+        return Math.hypot(xy[2 * k] - x, xy[2 * k + 1] - y);
+    }
+}
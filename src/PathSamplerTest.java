@@ -0,0 +1,68 @@
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+
+public class PathSamplerTest {
+
+    private static final double DELTA = 1e-12;
+
+    @Test
+    public void testBreakpoints() {
+        Point2D.Double[] path = {new Point2D.Double(0, 0), new Point2D.Double(2.5, 1.5)};
+        ArrayList<Point2D.Double> samples = PathSampler.sample(path, TestPolygons.square(0), TestPolygons.square(0.5), 0);
+        double[][] expected = {{0, 0}, {1, 0.6}, {5.0 / 3, 1}, {2, 1.2}, {2.5, 1.5}};
+        Assert.assertEquals(expected.length, samples.size());
+        for (int k = 0; k < expected.length; k++) {
+            Assert.assertEquals(expected[k][0], samples.get(k).x, DELTA);
+            Assert.assertEquals(expected[k][1], samples.get(k).y, DELTA);
+        }
+        //the path is left alone
+        Assert.assertEquals(new Point2D.Double(0, 0), path[0]);
+        Assert.assertEquals(new Point2D.Double(2.5, 1.5), path[1]);
+    }
+
+    @Test
+    public void testSameMorphAsDenseSampling() {
+        Point2D.Double[] polyP = TestPolygons.square(0);
+        Point2D.Double[] polyQ = {new Point2D.Double(0, 0), new Point2D.Double(2, 0.5), new Point2D.Double(1, 2)};
+        Point2D.Double[] path = {new Point2D.Double(0, 0), new Point2D.Double(1.7, 0.4), new Point2D.Double(4, 3)};
+        ArrayList<Point2D.Double> samples = PathSampler.sample(path, polyP, polyQ, 0);
+        MorphPath sparse = new MorphPath(polyP, polyQ, samples);
+
+        //every densely sampled morph point lies on the morph drawn through the breakpoints
+        for (int i = 0; i < path.length - 1; i++) {
+            for (int step = 0; step <= 100; step++) {
+                double s = step / 100.0;
+                ArrayList<Point2D.Double> dense = new ArrayList<Point2D.Double>();
+                dense.add(new Point2D.Double(path[i].x + s * (path[i + 1].x - path[i].x), path[i].y + s * (path[i + 1].y - path[i].y)));
+                for (double fraction = 0; fraction <= 1; fraction += 0.25) {
+                    Point2D.Double point = new MorphPath(polyP, polyQ, dense).at(fraction)[0];
+                    Assert.assertTrue(distanceToPolyline(point, sparse.at(fraction)) < 1e-6);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTolerance() {
+        //both positions move along a single edge at the same pace, the middle vertex adds nothing
+        Point2D.Double[] path = {new Point2D.Double(0, 0), new Point2D.Double(0.5, 0.5), new Point2D.Double(1, 1)};
+        Assert.assertEquals(3, PathSampler.sample(path, TestPolygons.square(0), TestPolygons.square(1), 0).size());
+        Assert.assertEquals(2, PathSampler.sample(path, TestPolygons.square(0), TestPolygons.square(1), 1e-9).size());
+
+        //here Q turns a corner at 1 while P goes straight on at another pace, which bends the morph
+        Point2D.Double[] bent = {new Point2D.Double(0, 0), new Point2D.Double(0.5, 1.5), new Point2D.Double(1, 2)};
+        Assert.assertEquals(4, PathSampler.sample(bent, TestPolygons.square(0), TestPolygons.square(1), 1e-9).size());
+    }
+
+    private static double distanceToPolyline(Point2D.Double point, Point2D.Double[] polyline) {
+        double closest = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < polyline.length - 1; k++) {
+            java.awt.geom.Line2D.Double segment = new java.awt.geom.Line2D.Double(polyline[k], polyline[k + 1]);
+            closest = Math.min(closest, segment.ptSegDist(point));
+        }
+        return closest;
+    }
+}
@@ -1,4 +1,3 @@
-import javax.imageio.ImageIO;
 import javax.swing.*;
 
 import org.poly2tri.*;
@@ -9,12 +8,9 @@ import org.poly2tri.triangulation.delaunay.DelaunayTriangle;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.Point2D;
-import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
 
 
 public class PolygonInputFrame extends JFrame implements ActionListener {
@@ -24,6 +20,9 @@ public class PolygonInputFrame extends JFrame implements ActionListener {
 	Point2D.Double[] polyP;
 	Point2D.Double[] polyQ;
 
+	//how far the animated morph may stray from the exact one, well below a pixel at the usual size of the plot
+	static final double MORPH_TOLERANCE = 0.001;
+
 	public PolygonInputFrame() {
     	super("Frechet Distance - Simple Polygons");
     	drawPanel = new PlotArea();
@@ -33,9 +32,9 @@ public class PolygonInputFrame extends JFrame implements ActionListener {
 
         //TODO: exception if no path
 
-        double epsilon = criticalEpsilon(polyP, polyQ, 0, 5.0);
+        double epsilon = new CriticalValues(polyP, polyQ).criticalEpsilon(FrechetBounds.HAUSDORFF, FrechetBounds.DISCRETE_FRECHET);
     	System.out.println("Epsilon: " + epsilon);
-        ReachabilityStructure graph = new ReachabilityStructure(polyP, polyQ, epsilon);
+        ReachabilityStructure graph = new ReachabilityStructure(polyP, polyQ, CriticalValues.decidedAt(epsilon));
 
         ArrayList<Point2D.Double[]> possibles = graph.possiblePaths();
         Point2D.Double[] path = possibles.get(0);
@@ -52,7 +51,7 @@ public class PolygonInputFrame extends JFrame implements ActionListener {
             double spEnd = 0;
 
             //TODO: clean up this conversion to display SP. variable names are horrible and this should be a separate function
-            Diagonal d = graph.trueDiagonalsForPolygon(polyP).get(0);
+            Diagonal d = ReachabilityStructure.trueDiagonalsForPolygon(polyP).get(0);
             for (Point2D.Double point : path) {
                 if ((int)point.x == d.startIndex) {
                     spStart = point.y;
@@ -82,8 +81,8 @@ public class PolygonInputFrame extends JFrame implements ActionListener {
                 double ey = (1 - endend)*startsegmentStart.y + endend*startsegmentEnd.y;
                 Point2D.Double endForSP = new Point2D.Double(ex, ey);
 
-                ShortestPath spCalculator = new ShortestPath(insertPointIntoPolygon(insertPointIntoPolygon(polyQ, startForSP), endForSP), startForSP, endForSP);
-                drawPanel.spPath = spCalculator.getPath();
+                //the same shortest paths in Q as the reachability structure uses, the ends don't have to be vertices
+                drawPanel.spPath = new GeodesicOracle(polyQ).shortestPath(startForSP, endForSP);
             }
 
 
@@ -106,157 +105,28 @@ public class PolygonInputFrame extends JFrame implements ActionListener {
         ArrayList<Point2D.Double> sampledPath = new ArrayList<Point2D.Double>();
 
         if (path != null) {
-            sampledPath = samplePath(path, drawPanel);
-            drawPanel.interpolation = interpolatedPolygons(samplePath(path, drawPanel), 0.3);
+            sampledPath = PathSampler.sample(path, polyP, polyQ, MORPH_TOLERANCE);
+            System.out.println("Sampled Path: " + sampledPath);
         }
 
-        int ctr = 0;
-        for (double i = 0.0; i<= 1.0; i += 0.01) {
-            drawPanel.interpolation = interpolatedPolygons(sampledPath, i);
-
-            BufferedImage bImg = new BufferedImage(drawPanel.getWidth(), drawPanel.getWidth(), BufferedImage.TYPE_INT_RGB);
-            Graphics2D cg = bImg.createGraphics();
-            drawPanel.paint(cg);
-            try {
-                if (ImageIO.write(bImg, "png", new File("./animation/output_image" + ctr + ".png")))
-                {
-                    System.out.println("-- saved");
-                    ctr++;
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-        for (double i = 1.0; i>= 0.0; i -= 0.01) {
-            drawPanel.interpolation = interpolatedPolygons(sampledPath, i);
-
-            BufferedImage bImg = new BufferedImage(drawPanel.getWidth(), drawPanel.getWidth(), BufferedImage.TYPE_INT_RGB);
-            Graphics2D cg = bImg.createGraphics();
-            drawPanel.paint(cg);
-            try {
-                if (ImageIO.write(bImg, "png", new File("./animation/output_image" + ctr + ".png")))
-                {
-                    System.out.println("-- saved");
-                    ctr++;
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        //frames are drawn in parallel and written as they are done, see AnimationRenderer
+        MorphPath morph = new MorphPath(polyP, polyQ, sampledPath);
+        drawPanel.interpolation = morph.at(0.3);
+        MorphPainter painter = new MorphPainter(polyP, polyQ, drawPanel.spPath, drawPanel.triangulation);
+        //the frames are square with the width of the panel, as they have always been saved
+        ForkJoinPool pool = new ForkJoinPool();
+        AnimationRenderer animation = new AnimationRenderer(painter, drawPanel.getWidth(), drawPanel.getWidth(), pool);
+        double[] fractions = AnimationRenderer.pingPongFractions();
+        try {
+            System.out.println("-- saved " + animation.render(morph, fractions, "./animation/output_image") + " frames");
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            pool.shutdown();
         }
-	}
-
-    double criticalEpsilon(Point2D.Double[] polyP, Point2D.Double[] polyQ, double min, double max) {
-        if (Math.abs(min - max) < 0.0001 ) {
-            return max ;
-        }
-        ReachabilityStructure graph = new ReachabilityStructure(polyP, polyQ, (min + max) / 2);
-        Point2D.Double[] path = graph.getFirstReachablePath();
-        graph = null;
-        System.gc();
-        if (path != null) {
-            return criticalEpsilon(polyP, polyQ, min, (min + max) / 2.0);
-        } else {
-            return criticalEpsilon(polyP, polyQ, (min + max) / 2.0, max);
-        }
-    }
-
-    private ArrayList<Point2D.Double> samplePath(Point2D.Double[] path, PlotArea plotArea) {
-        ArrayList<Point2D.Double> sampledPath = new ArrayList<Point2D.Double>();
-        double dx = plotArea.toMathX(1) - plotArea.toMathX(0);
-        for (int i = 0; i < path.length - 1; i++) {
-            Point2D.Double current = path[i];
-            while (current.x <= path[i+1].x) {
-                sampledPath.add(new Point2D.Double(current.x, current.y));
-                double nextx = current.x + dx;
-
-                double nexty = path[i].y + (path[i+1].y - path[i].y)*((nextx - path[i].x)/(path[i+1].x - path[i].x));
-                current.x = nextx;
-                current.y = nexty;
-
-            }
-        }
-        sampledPath.add(path[path.length - 1]);
-        System.out.println("Sampled Path: " + sampledPath);
-        return sampledPath;
-    }
-
-    Point2D.Double[] interpolatedPolygons(ArrayList<Point2D.Double> sampledPath, double fraction) {
-        ArrayList<Point2D.Double> interpolatedPath = new ArrayList<Point2D.Double>();
-        for (Point2D.Double point : sampledPath) {
-
-            Point2D.Double pointInP; //from x value
-            Point2D.Double pointInQ; //from y value
-
-            //Point in P
-            int polyPStartIndex = (int) Math.floor(point.x);
-            double polyPAdjustedParameter = point.x - polyPStartIndex;
-            polyPStartIndex %= (polyP.length);
-            int polyPEndIndex = (polyPStartIndex + 1) % polyP.length;
-
-            Point2D.Double polyPStart = polyP[polyPStartIndex];
-            Point2D.Double polyPEnd = polyP[polyPEndIndex];
-
-            double px = (1 - polyPAdjustedParameter)*polyPStart.x + polyPAdjustedParameter*polyPEnd.x;
-            double py = (1 - polyPAdjustedParameter)*polyPStart.y + polyPAdjustedParameter*polyPEnd.y;
-
-            pointInP = new Point2D.Double(px, py);
-
-            //Point in Q
-            int polyQStartIndex = (int) Math.floor(point.y);
-            double polyQAdjustedParameter = point.y - polyQStartIndex;
-            polyQStartIndex %= (polyQ.length);
-            int polyQEndIndex = (polyQStartIndex + 1) % polyQ.length;
-
-            Point2D.Double polyQStart = polyQ[polyQStartIndex];
-            Point2D.Double polyQEnd = polyQ[polyQEndIndex];
-
-            double qx = (1 - polyQAdjustedParameter)*polyQStart.x + polyQAdjustedParameter*polyQEnd.x;
-            double qy = (1 - polyQAdjustedParameter)*polyQStart.y + polyQAdjustedParameter*polyQEnd.y;
-
-            pointInQ = new Point2D.Double(qx, qy);
-
-            //In between the two
-            double interX = (1 - fraction)*pointInP.x + fraction*pointInQ.x;
-            double interY =  (1 - fraction)*pointInP.y + fraction*pointInQ.y;
-            Point2D.Double interpolatedPoint = new Point2D.Double(interX, interY);
-            interpolatedPath.add(interpolatedPoint);
-        }
-        Point2D.Double[] result = new Point2D.Double[interpolatedPath.size()];
-        for (int i = 0; i < result.length; i++) {
-             result[i] = interpolatedPath.get(i);
-        }
-        return result;
-    }
-
-	private Point2D.Double[] insertPointIntoPolygon(Point2D.Double[] poly, Point2D.Double point) {
-		//Iterate through all edges
-		for (int i = 0; i < poly.length; i++) {
-			int j = i + 1;
-			if (j >= poly.length) {
-				j = 0;
-			}
-			//if distance from point to edge is small, insert point between the vertices making up that edge
-			double denominator = Math.sqrt((poly[j].x - poly[i].x)*(poly[j].x - poly[i].x) + (poly[j].y - poly[i].y)*(poly[j].y - poly[i].y));
-			double numerator = Math.abs((poly[j].x - poly[i].x)*(poly[i].y - point.y) - (poly[i].x - point.x)*(poly[j].y - poly[i].y));
-
-			Point2D.Double[] newPolygon = new Point2D.Double[poly.length + 1];
-			if (getZero(numerator/denominator) == 0) {
-				System.arraycopy(poly, 0, newPolygon, 0, j);
-				newPolygon[j] = point;
-				System.arraycopy(poly, j, newPolygon, j+1, poly.length-j);
-				return newPolygon;
-			}
-		}
-		return poly;
-	}
-
-	private double getZero(double x) {
-		double testPositiveZero = 0.00000000001;
-		double testNegativeZero = -0.00000000001;
-		if (x >= testNegativeZero && x <= testPositiveZero) {
-			x = 0;
-		}
-		return x;
+        drawPanel.interpolation = morph.at(fractions[fractions.length - 1]);
 	}
 
 	private void addTestPolygons() {
@@ -306,10 +176,6 @@ class PlotArea extends JPanel{
 	public Point2D.Double[] polyP;
 	public Point2D.Double[] polyQ;
 	public Point2D.Double[] spPath;
-	private double xmin = -2;
-	private double xmax = 2;
-	private double ymin = -2;
-	private double ymax = 2;
 	public ArrayList<DelaunayTriangle> triangulation;
     public Point2D.Double[] interpolation;
 
@@ -320,68 +186,24 @@ class PlotArea extends JPanel{
 	public void paint(Graphics g)
 	{
         super.paint(g);
-		g.setColor(Color.blue);
-		drawPolygon(polyP, g);
-		g.setColor(Color.red);
-		drawPolygon(polyQ, g);
-		if (spPath != null) {
-            g.setColor(Color.blue);
-			drawPath(spPath, g);
-		}
-		g.setColor(Color.orange);
-		if (triangulation != null) {
-			Iterator<DelaunayTriangle> itr = triangulation.iterator();
-			while(itr.hasNext()) {
-				DelaunayTriangle t = (DelaunayTriangle) itr.next();
-				Point2D.Double[] converted = {new Point2D.Double(t.points[0].getX(), t.points[0].getY()), new Point2D.Double(t.points[1].getX(), t.points[1].getY()), new Point2D.Double(t.points[2].getX(), t.points[2].getY())};
-	    	    drawPolygon(converted, g);
-	    	    System.out.println("Triangulation Triangle: " + Arrays.toString(converted));
-			}
-		}
-        Graphics2D g2 = (Graphics2D) g;
-        g2.setStroke(new BasicStroke(3));
-        g.setColor(Color.green);
-        if (interpolation != null) {
-            drawPolygon(interpolation, g2);
-        }
-    	super.paintComponents(g2);
-	}
-
-	public void drawPolygon (Point2D.Double[] points, Graphics g) {
-		Point[] screenPoints = new Point[points.length];
-		for (int i = 0; i<points.length; i++) {
-			screenPoints[i] = new Point(toScreenX(points[i].x), toScreenY(points[i].y));
-		}
-		for (int i = 0; i<screenPoints.length; i++) {
-			int j = i + 1;
-			if (i == screenPoints.length - 1) {
-				j = 0;
-			}
-			g.drawLine(screenPoints[i].x, screenPoints[i].y, screenPoints[j].x, screenPoints[j].y);
-		}
-	}
-
-	public void drawPath(Point2D.Double[] points, Graphics g) {
-		g.setColor(Color.green);
-		for (int i = 0; i< points.length - 1; i++) {
-			g.drawLine(toScreenX(points[i].x), toScreenY(points[i].y), toScreenX(points[i+1].x), toScreenY(points[i+1].y));
-		}
+		new MorphPainter(polyP, polyQ, spPath, triangulation).paint(g, getWidth(), getHeight(), interpolation);
+    	super.paintComponents(g);
 	}
 
 	public double toMathX(int x)
 	{
-	    return (x - (this.getWidth()) / 2) * ((xmax - xmin) / (this.getWidth())) + ((xmax + xmin) / 2);
+	    return MorphPainter.toMathX(x, this.getWidth());
 	}
 	public double toMathY(int y)
 	{
-	    return ((this.getHeight()) / 2 - y) * ((ymax - ymin) / (this.getHeight())) + ((ymax + ymin) / 2);
+	    return MorphPainter.toMathY(y, this.getHeight());
 	}
 	public int toScreenX(double x)
 	{
-	    return (int)((this.getWidth() / 2) + (x - (xmax + xmin) / 2) * (this.getWidth() / (xmax - xmin)));
+	    return MorphPainter.toScreenX(x, this.getWidth());
 	}
 	public int toScreenY(double y)
 	{
-	    return (int)((this.getHeight() / 2) - (y - (ymax + ymin) / 2) * (this.getHeight() / (ymax - ymin)));
+	    return MorphPainter.toScreenY(y, this.getHeight());
 	}
 }
@@ -0,0 +1,44 @@
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+
+//What a ReachabilityStructure works out about one of its polygons on its own, kept so that every structure built
+//for the polygon can share it: the doubled border when it is P, its ordered diagonals when it is P, and its
+//triangulation when it is Q (for the shortest paths in GeodesicOracle).
+//The parts are computed the first time they are asked for and never changed after, so one PreparedPolygon can be
+//used by structures on any number of threads.
+public class PreparedPolygon {
+    final Point2D.Double[] poly;
+    private Point2D.Double[] doubled;
+    private ArrayList<Diagonal> orderedDiagonals;
+    private int[][] triangles;
+    private boolean triangulated;
+
+    public PreparedPolygon(Point2D.Double[] poly) {
+        this.poly = poly;
+    }
+
+    //The polygon twice over, for the x-axis of the diagram
+    synchronized Point2D.Double[] doubled() {
+        if (doubled == null) {
+            doubled = ReachabilityStructure.doubled(poly);
+        }
+        return doubled;
+    }
+
+    //See ReachabilityStructure.orderedDiagonalsForPolygon, the list is shared and must not be changed
+    synchronized ArrayList<Diagonal> orderedDiagonals() {
+        if (orderedDiagonals == null) {
+            orderedDiagonals = ReachabilityStructure.orderedDiagonalsForPolygon(poly);
+        }
+        return orderedDiagonals;
+    }
+
+    //See GeodesicOracle.triangulate, null if it failed
+    synchronized int[][] triangles() {
+        if (!triangulated) {
+            triangles = GeodesicOracle.triangulate(poly);
+            triangulated = true;
+        }
+        return triangles;
+    }
+}
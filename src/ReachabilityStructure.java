@@ -1,179 +1,235 @@
 
-import net.sf.epsgraphics.ColorMode;
 import org.poly2tri.Poly2Tri;
 import org.poly2tri.geometry.polygon.Polygon;
 import org.poly2tri.geometry.polygon.PolygonPoint;
 import org.poly2tri.triangulation.delaunay.DelaunayTriangle;
 
-import net.sf.epsgraphics.EpsGraphics;
 
-
-import java.awt.*;
-import java.awt.color.ColorSpace;
 import java.awt.geom.Point2D;
 import java.util.*;
-import java.io.FileOutputStream;
-import java.io.File;
+import java.util.concurrent.ForkJoinPool;
 
 
-//TODO: only calculate columns once, then double. This saves a LOT of calculation
+//TODO: the free space is only calculated once for the doubled P, the merged columns could be shared the same way
 
 public class ReachabilityStructure {
 	Point2D.Double[] originalPolyP;
 	Point2D.Double[] originalPolyQ;
 	Point2D.Double[] borderPolyP;
 	Point2D.Double[] borderPolyQ;
-    ArrayList<Layer> layers;
+    //merged columns of the free-space diagram, queries only read from it
+    Layer baseLayer;
     double _epsilon;
 
-    EpsGraphics baseG;
+    //runs the per-column work of createBaseLayer and the column merges, null to use the calling thread
+    ForkJoinPool pool;
+
+    //mergeCells looks up connecting arrows in an ArrowIndex once the lower cell has this many arrows,
+    //below that the plain loop over all pairs is cheaper than building the index
+    static final int INDEXED_JOIN_THRESHOLD = 16;
+    boolean indexedJoins = true;
+
+    //drops dominated arrows from every merged cell, null to keep all of them
+    DominancePruner pruner;
+
+    //epsilon-free boundary data the free space is sliced from, see geometry()
+    FreeSpaceGeometry geometry;
+
+    //what only depends on P or on Q, shared with other structures for the same polygons
+    PreparedPolygon preparedP;
+    PreparedPolygon preparedQ;
+
+    //diagonals of the doubled P, P is only triangulated once for all start points
+    ArrayList<Diagonal> orderedDiagonals;
+
+    //merged columns of the diagonal subtrees used most recently, keyed by DiagonalNode.signature()
+    //start points whose diagonal trees share a subtree reuse its merge instead of redoing it.
+    //Every entry is a whole column of arrows, so only so many are kept and the rest are merged again when needed.
+    static final int MERGED_SUBTREE_CACHE_SIZE = 256;
+    LruCache<String, ArrayList<Set<Arrow>>> mergedSubtrees = new LruCache<String, ArrayList<Set<Arrow>>>(MERGED_SUBTREE_CACHE_SIZE);
+    boolean sharedMerges = true;
+
+    //shortest paths in Q for pruneInvalidIntervalsFromColumn, see geodesicOracle()
+    GeodesicOracle geodesicOracle;
+
+    //boundary parameters closer than this share their cached shortest paths and diagonal checks
+    static final double BOUNDARY_QUANTUM = 1e-9;
+    static final int SHORTEST_PATH_CACHE_SIZE = 4096;
+    //cached in place of a shortest path that doesn't exist
+    static final Point2D.Double[] NO_PATH = new Point2D.Double[0];
+    //see followsDiagonal
+    LruCache<List<Long>, Point2D.Double[]> geodesics = new LruCache<List<Long>, Point2D.Double[]>(SHORTEST_PATH_CACHE_SIZE);
+    LruCache<List<Long>, Boolean> diagonalChecks = new LruCache<List<Long>, Boolean>(SHORTEST_PATH_CACHE_SIZE);
+
+    //first cyclic path through the diagram, searched for once
+    Point2D.Double[] firstPath;
+    boolean firstPathSearched;
+
+    //answers of isReachable, for this epsilon and the others asked about
+    TreeMap<Double, Boolean> reachableAt = new TreeMap<Double, Boolean>();
 
 	//Construct base reachability graph from polygons
 	public ReachabilityStructure(Point2D.Double[] polyP, Point2D.Double[] polyQ, double epsilon) {
+		this(polyP, polyQ, epsilon, null);
+	}
+
+	//Same as above, but the columns are computed and merged concurrently on pool.
+	//Columns are independent, so the result is identical to the sequential build.
+	public ReachabilityStructure(Point2D.Double[] polyP, Point2D.Double[] polyQ, double epsilon, ForkJoinPool pool) {
+		this(polyP, polyQ, epsilon, pool, null);
+	}
+
+	//Same as above, with pruner applied to every merged cell. That makes the structure an approximate decision:
+	//a path it finds is always a path, but it can answer that there is none when there is one (see DominancePruner).
+	public ReachabilityStructure(Point2D.Double[] polyP, Point2D.Double[] polyQ, double epsilon, ForkJoinPool pool, DominancePruner pruner) {
+		this(polyP, polyQ, epsilon, pool, pruner, null);
+	}
+
+	//Same as above, with the free space sliced out of geometry instead of computed from the polygons.
+	//geometry has to come from geometryFor with the same polygons, null to compute the free space directly.
+	public ReachabilityStructure(Point2D.Double[] polyP, Point2D.Double[] polyQ, double epsilon, ForkJoinPool pool, DominancePruner pruner, FreeSpaceGeometry geometry) {
+		this(new PreparedPolygon(polyP), new PreparedPolygon(polyQ), epsilon, pool, pruner, geometry);
+	}
+
+	//Same as above, with what only depends on one polygon taken from (and left in) preparedP and preparedQ.
+	//Structures for the same polygons, at other epsilons or paired with other polygons, can then share it.
+	public ReachabilityStructure(PreparedPolygon preparedP, PreparedPolygon preparedQ, double epsilon, ForkJoinPool pool, DominancePruner pruner, FreeSpaceGeometry geometry) {
+		Point2D.Double[] polyP = preparedP.poly;
+		Point2D.Double[] polyQ = preparedQ.poly;
 
 		//Store pointers to original polygons, and build the edge list of points.
 		//P is copied twice
 		originalPolyP = polyP;
 		originalPolyQ = polyQ;
-		borderPolyP = new Point2D.Double[polyP.length * 2];
-		System.arraycopy(polyP, 0, borderPolyP, 0, polyP.length);
-		System.arraycopy(polyP, 0, borderPolyP, polyP.length, polyP.length);
+		this.preparedP = preparedP;
+		this.preparedQ = preparedQ;
+		borderPolyP = preparedP.doubled();
 		borderPolyQ = new Point2D.Double[polyQ.length];
 		System.arraycopy(polyQ, 0, borderPolyQ, 0, polyQ.length);
         _epsilon = epsilon;
+        this.pool = pool;
+        this.pruner = pruner;
+        this.geometry = geometry;
+
+        //the second half of the doubled P is a view of the first
+        FreeSpace freeSpace;
+        if (geometry != null) {
+            freeSpace = new FreeSpace(geometry, epsilon, pool);
+        } else {
+            freeSpace = new FreeSpace(borderPolyP, borderPolyQ, epsilon, true, polyP.length, pool);
+        }
+		final Layer zeroLayer = createBaseLayer(freeSpace);
+		baseLayer = zeroLayer;
 
+        ColumnTask.forEach(pool, zeroLayer.arrows.size(), new ColumnTask.Body() {
+            public void column(int i) {
+                mergeCellsIntoColumn(zeroLayer.arrows.get(i), zeroLayer.freeSpace, i);
+            }
+        });
+    }
 
+    static Point2D.Double[] doubled(Point2D.Double[] polyP) {
+        Point2D.Double[] border = new Point2D.Double[polyP.length * 2];
+        System.arraycopy(polyP, 0, border, 0, polyP.length);
+        System.arraycopy(polyP, 0, border, polyP.length, polyP.length);
+        return border;
+    }
 
-		Layer zeroLayer = createBaseLayer(borderPolyP, borderPolyQ, epsilon, false);
-		layers = new ArrayList<Layer>();
-        layers.add(zeroLayer);
+    //Boundary geometry of the diagram of polyP (doubled) and polyQ, for structures at any epsilon
+    static FreeSpaceGeometry geometryFor(Point2D.Double[] polyP, Point2D.Double[] polyQ, ForkJoinPool pool) {
+        return geometryFor(new PreparedPolygon(polyP), polyQ, pool);
+    }
 
-        for (ArrayList<Set<Arrow>> column : layers.get(0).arrows) {
-            mergeCellsIntoColumn(column);
-        }
+    static FreeSpaceGeometry geometryFor(PreparedPolygon preparedP, Point2D.Double[] polyQ, ForkJoinPool pool) {
+        return new FreeSpaceGeometry(preparedP.doubled(), polyQ, preparedP.poly.length, pool);
+    }
 
-        baseG = generateFSD("BaseReachability.eps");
+    //Built the first time a structure for another epsilon is needed, then shared with all of them
+    FreeSpaceGeometry geometry() {
+        if (geometry == null) {
+            geometry = geometryFor(preparedP, originalPolyQ, pool);
+        }
+        return geometry;
     }
 
+    //Drawing is left to FreeSpaceRenderer, these write the usual files
     public void saveFSD() {
-        EpsGraphics g = generateFSD("FSD.eps");
-        try{
-            g.close();
-        } catch (Exception e) {
-            System.out.println("ERROR: " + e.toString());
-        }
+        new FreeSpaceRenderer(this).writeEps("FSD.eps", new ArrayList<Point2D.Double[]>());
     }
 
     public void saveAllPaths() {
-        EpsGraphics g = generateFSD("ReachabilityGraphAllPaths.eps");
-        for (Point2D.Double[] path : possiblePaths()) {
-            addPathToFSD(path, "ReachabilityGraphAllPaths.eps", g);
-        }
-        try{
-            g.close();
-        } catch (Exception e) {
-            System.out.println("ERROR: " + e.toString());
-        }
+        new FreeSpaceRenderer(this).writeEps("ReachabilityGraphAllPaths.eps", possiblePaths());
     }
 
     public void saveAllPathsSeperately() {
+        FreeSpaceRenderer renderer = new FreeSpaceRenderer(this);
         int pathCount = 0;
-
         for (Point2D.Double[] path : possiblePaths()) {
-            EpsGraphics g = generateFSD("Paths/path" + pathCount + ".eps");
-            addPathToFSD(path, "Paths/path" + pathCount + ".eps", g);
-            try{
-                g.close();
-            } catch (Exception e) {
-                System.out.println("ERROR: " + e.toString());
-            }
+            ArrayList<Point2D.Double[]> single = new ArrayList<Point2D.Double[]>();
+            single.add(path);
+            renderer.writeEps("Paths/path" + pathCount + ".eps", single);
             ++pathCount;
         }
     }
 
-    public EpsGraphics generateFSD(String filename) {
-        try {
-            FileOutputStream image = new FileOutputStream(filename, false);
-            EpsGraphics g = new EpsGraphics(filename, image, 0, 0, (borderPolyP.length - 1)*100 + 10, (borderPolyQ.length -1)*100 + 10, ColorMode.COLOR_RGB);
-
-            g.setColor(Color.black);
-
-            for (int i = 0; i < borderPolyP.length; i++) {
-                g.drawLine(5 + i * 100, 5, 5 + i * 100, (borderPolyQ.length - 1) * 100 + 5);
-            }
-
-            for (int j = 0; j < borderPolyQ.length; j++) {
-                g.drawLine(5, 5 + j*100, (borderPolyP.length-1)*100 + 5, 5 + j*100);
-            }
-
-            Layer zeroLayer = createBaseLayer(borderPolyP, borderPolyQ, _epsilon, false);
-            for (int i = 0; i < borderPolyP.length - 1; i++) {
-                for (int j = 0; j < borderPolyQ.length - 1; j++) {
-                    addCellToFSD(zeroLayer.arrows.get(i).get(j), filename, g);
-                }
-            }
-
-            //g.close();
-            //image.close();
-            return g;
-        } catch (Exception e) {
-            System.out.println("ERROR: " + e.toString());
-        }
-        return null;
+    //Caches behind pruneInvalidIntervalsFromColumn, for their hit and miss counts
+    public LruCache<List<Long>, Point2D.Double[]> getShortestPathCache() {
+        return geodesics;
     }
 
-    public void addCellToFSD(Set<Arrow> arrows, String filename, EpsGraphics g) {
-
-        int height = (borderPolyQ.length - 1) * 100;
+    public LruCache<List<Long>, Boolean> getDiagonalCheckCache() {
+        return diagonalChecks;
+    }
 
-        try {
-            FileOutputStream image = new FileOutputStream(filename, true);
-            g.setColor(Color.white);
-            if (arrows != null) {
-                for (Arrow arrow : arrows) {
-                    if (!arrow.isNull()) {
-                        g.drawLine((int)(arrow.start.startGraph.x * 100) + 5, height - (int)(arrow.start.startGraph.y * 100) + 5, (int)(arrow.start.endGraph.x * 100) + 5, height - (int)(arrow.start.endGraph.y * 100) + 5);
-                        g.drawLine((int) (arrow.end.startGraph.x * 100) + 5, height - (int) (arrow.end.startGraph.y * 100) + 5, (int) (arrow.end.endGraph.x * 100) + 5, height - (int) (arrow.end.endGraph.y * 100) + 5);
-                    }
-                }
-            }
-            g.setColor(Color.getHSBColor(0.f, 1.f, 1.f));
-            //g.close();
-            image.close();
-        } catch (Exception e) {
-            System.out.println("ERROR: " + e.toString());
+    //The path is shared with later calls and must not be changed
+    public Point2D.Double[] getFirstReachablePath() {
+        if (!firstPathSearched) {
+            ArrayList<Point2D.Double[]> paths = findPaths(true);
+            firstPath = paths.size() > 0 ? paths.get(0) : null;
+            firstPathSearched = true;
         }
+        return firstPath;
+    }
 
+    //Decision only: is there a cyclic path at this structure's epsilon. Stops at the first path found.
+    public boolean isReachable() {
+        return isReachable(_epsilon);
     }
 
-    public void addPathToFSD(Point2D.Double[] path, String filename, EpsGraphics g) {
-        int height = (borderPolyQ.length - 1) * 100;
-        try {
-            FileOutputStream image = new FileOutputStream(filename, true);
-            float[] hsv = Color.RGBtoHSB(g.getColor().getRed(), g.getColor().getGreen(), g.getColor().getBlue(), null);
-            g.setColor(Color.getHSBColor(hsv[0] + 0.1f, 1, 1));
-            for (int i = 0; i< path.length - 1; i++) {
-                g.drawLine((int)(path[i].x * 100) + 5, height - (int)(path[i].y * 100) + 5, (int)(path[i+1].x * 100) + 5, height - (int)(path[i+1].y * 100) + 5);
+    //Same as above for any epsilon. Reachability only grows with epsilon, so an answer already known for a smaller
+    //(reachable) or larger (unreachable) epsilon is reused, otherwise a structure is built for epsilon and asked.
+    public boolean isReachable(double epsilon) {
+        Boolean known = reachableAt.get(epsilon);
+        if (known == null) {
+            Map.Entry<Double, Boolean> below = reachableAt.floorEntry(epsilon);
+            Map.Entry<Double, Boolean> above = reachableAt.ceilingEntry(epsilon);
+            if (below != null && below.getValue()) {
+                known = true;
+            } else if (above != null && !above.getValue()) {
+                known = false;
+            } else if (epsilon == _epsilon) {
+                known = getFirstReachablePath() != null;
+            } else {
+                known = new ReachabilityStructure(preparedP, preparedQ, epsilon, pool, pruner, geometry()).isReachable();
             }
-            //baseG.close();
-            image.close();
-        } catch (Exception e) {
-            System.out.println("ERROR: " + e.toString());
+            reachableAt.put(epsilon, known);
         }
+        return known;
     }
 
-    public Point2D.Double[] getFirstReachablePath() {
-        if (possiblePaths().size() > 0) {
-            return possiblePaths().get(0);
-        } else {
-            return null;
-        }
+    public ArrayList<Point2D.Double[]> possiblePaths() {
+        return findPaths(false);
     }
 
-    public ArrayList<Point2D.Double[]> possiblePaths() {
+    //All cyclic paths through the diagram, or only the first one found if firstOnly is set.
+    //With a pruner every path found is a real one, but paths can be missed, see DominancePruner.
+    ArrayList<Point2D.Double[]> findPaths(boolean firstOnly) {
         ArrayList<Point2D.Double[]> possibles = new ArrayList<Point2D.Double[]>();
-        for (ArrayList<Set<Arrow>> column : layers.get(0).arrows) {
-            if (column.get(0) != null) {
+        FreeSpace freeSpace = baseLayer.freeSpace;
+        for (int columnIndex = 0; columnIndex < baseLayer.arrows.size(); columnIndex++) {
+            ArrayList<Set<Arrow>> column = baseLayer.arrows.get(columnIndex);
+            //paths start on the bottom boundary, skip columns where it is closed
+            if (column.get(0) != null && freeSpace.hasHorizontal(columnIndex, 0)) {
                 for (Arrow arrow : column.get(0)) {
                     if (!arrow.isNull() && !arrow.start.isVertical() && arrow.start.startGraph.y == 0) {
                         Point2D.Double testPoint = arrow.start.getMidpoint();
@@ -202,6 +258,9 @@ public class ReachabilityStructure {
                                                 System.arraycopy(path, 0, finalPath, 1, path.length);
                                                 finalPath[finalPath.length - 1] = endPoint;
                                                 possibles.add(finalPath);
+                                                if (firstOnly) {
+                                                    return possibles;
+                                                }
                                             }
                                         }
                                     }
@@ -265,100 +324,76 @@ public class ReachabilityStructure {
     }
 
     Layer createBaseLayer(Point2D.Double[] polyX, Point2D.Double[] polyY, double epsilon, boolean polyLine) {
+        //First compute the free space of every cell boundary, then find the arrows only within each cell
+        //unless polyX is a polyline it is a doubled polygon, and the second half of the free space is a view of the first
+        int period = polyLine ? polyX.length - 1 : polyX.length / 2;
+        return createBaseLayer(new FreeSpace(polyX, polyY, epsilon, true, period, pool));
+    }
+
+    //Arrows within each cell of an already computed free space
+    Layer createBaseLayer(final FreeSpace freeSpace) {
         Layer layerZero = new Layer();
         layerZero.level = 0;
         layerZero.arrows = new ArrayList<ArrayList<Set<Arrow>>>();
+        layerZero.freeSpace = freeSpace;
+        final ArrayList<ArrayList<Set<Arrow>>> columns = layerZero.arrows;
+        for (int i = 0; i < freeSpace.columns; i++) {
+            columns.add(null);
+        }
+        //columns are independent, each one is built by a single task
+        ColumnTask.forEach(pool, columns.size(), new ColumnTask.Body() {
+            public void column(int i) {
+                columns.set(i, createBaseColumn(freeSpace, i));
+            }
+        });
+        return layerZero;
+    }
 
-        //First build a list of intervals and find the arrows only within each cell
-        for (int i = 0; i < polyX.length - 1; i++) {
-            ArrayList<Set<Arrow>> column = new ArrayList<Set<Arrow>>();
-            layerZero.arrows.add(column);
-            for (int j = 0; j < polyY.length - 1; j++) {
-                //P on the x-axis, Q on the y-axis
-
-                //get the segments for each side of a cell so we can construct the arrows
-                //TODO: make calls simpler by passing an enum of L, R, T, B. Then i, j only needed to be passed once and the method can infer the rest.
-                Interval left = freeSpaceForSegment(layerZero, polyY[j], polyY[j+1], polyX[i], i, j, false, i, j, epsilon);
-                Interval right = freeSpaceForSegment(layerZero, polyY[j], polyY[j+1], polyX[i+1], i+1, j, false, i, j, epsilon);
-                Interval top = freeSpaceForSegment(layerZero, polyX[i], polyX[i+1], polyY[j+1], i, j+1, true, i, j, epsilon);
-                Interval bottom = freeSpaceForSegment(layerZero, polyX[i], polyX[i+1], polyY[j], i, j, true, i, j, epsilon);
-
-                //Build arrows and add to appropriate place in level
-                Set<Arrow> arrowSet = new HashSet<Arrow>();
-
-                if (left != null) {
-                    if (right != null) {
-                        Arrow arrow = new Arrow();
-                        arrow.start = new Interval(left);
-                        arrow.end = new Interval(right);
-                        enforceMonotonicity(arrow);
-                        arrowSet.add(arrow);
-                    }
-                    if (top != null) {
-                        Arrow arrow = new Arrow();
-                        arrow.start = new Interval(left);
-                        arrow.end = new Interval(top);
-                        enforceMonotonicity(arrow);
-                        arrowSet.add(arrow);
-                    }
+    //Builds the arrows within each cell of column i
+    ArrayList<Set<Arrow>> createBaseColumn(FreeSpace freeSpace, int i) {
+        ArrayList<Set<Arrow>> column = new ArrayList<Set<Arrow>>();
+        for (int j = 0; j < freeSpace.rows; j++) {
+            //P on the x-axis, Q on the y-axis
+            boolean left = freeSpace.hasVertical(i, j);
+            boolean right = freeSpace.hasVertical(i + 1, j);
+            boolean top = freeSpace.hasHorizontal(i, j + 1);
+            boolean bottom = freeSpace.hasHorizontal(i, j);
+
+            //Build arrows and add to appropriate place in level
+            Set<Arrow> arrowSet = new HashSet<Arrow>();
+
+            if (left) {
+                if (right) {
+                    arrowSet.add(enforceMonotonicity(new Arrow(freeSpace.verticalInterval(i, j), freeSpace.verticalInterval(i + 1, j))));
                 }
-                if (bottom != null) {
-                    if (right != null) {
-                        Arrow arrow = new Arrow();
-                        arrow.start = new Interval(bottom);
-                        arrow.end = new Interval(right);
-                        enforceMonotonicity(arrow);
-                        arrowSet.add(arrow);
-                    }
-                    if (top != null) {
-                        Arrow arrow = new Arrow();
-                        arrow.start = new Interval(bottom);
-                        arrow.end = new Interval(top);
-                        enforceMonotonicity(arrow);
-                        arrowSet.add(arrow);
-                    }
+                if (top) {
+                    arrowSet.add(enforceMonotonicity(new Arrow(freeSpace.verticalInterval(i, j), freeSpace.horizontalInterval(i, j + 1))));
                 }
-
-                if (arrowSet.size() == 0) {
-                    arrowSet = null;
+            }
+            if (bottom) {
+                if (right) {
+                    arrowSet.add(enforceMonotonicity(new Arrow(freeSpace.horizontalInterval(i, j), freeSpace.verticalInterval(i + 1, j))));
+                }
+                if (top) {
+                    arrowSet.add(enforceMonotonicity(new Arrow(freeSpace.horizontalInterval(i, j), freeSpace.horizontalInterval(i, j + 1))));
                 }
-                column.add(arrowSet);
             }
+
+            if (arrowSet.size() == 0) {
+                arrowSet = null;
+            }
+            column.add(arrowSet);
         }
-        return layerZero;
+        return column;
     }
 
     //This calculates the free space for a line segment, either horizontal or vertical.
 	//The axisPoint indicates the point on the other curve which should be compared
 	//i.e. if we're comparing a segment on Q, then we look at one point on P (a vertical if P is on the x axis)
-	//this checks the current level and retrieves an existing interval if it's already computed
-	Interval freeSpaceForSegment(Layer layer, Point2D.Double start, Point2D.Double end, Point2D.Double axisPoint, int xindex, int yindex, boolean horizontal, int xPositionFS, int yPositionFS, double epsilon) {
+	static Interval freeSpaceForSegment(Layer layer, Point2D.Double start, Point2D.Double end, Point2D.Double axisPoint, int xindex, int yindex, boolean horizontal, int xPositionFS, int yPositionFS, double epsilon) {
 		double xdiff, ydiff, root, b, divisor, t1, t2, q;
 
-		//Return precomputed interval if it exists
-		//Get cell to the left or bottom, depending on which side the segment is on
-		//TODO: use enum for LRTB, save some unnecessary compares
-        //TODO: in order to use this, need to change it so that cells are merged into columns AFTER all cells are calculated
-		/*Set<Arrow> arrowSet = null;
-		if (horizontal) {
-			//get cell below
-			if (yPositionFS - 1 >= 0) {
-				arrowSet = layer.arrows.get(xPositionFS).get(yPositionFS - 1);
-			}
-		} else {
-			//get cell to the left
-			if (xPositionFS - 1 >= 0) {
-				arrowSet = layer.arrows.get(xPositionFS - 1).get(yPositionFS);
-			}
-		}
-		if (arrowSet != null) {
-			for (Arrow arrow : arrowSet) {
-				if ( (horizontal && arrow.end.startGraph.x == arrow.end.endGraph.x) || (!horizontal && arrow.end.startGraph.y == arrow.end.endGraph.y) ) {
-					return arrow.end;
-				}
-			}
-		}*/
-
+		//createBaseLayer no longer calls this: FreeSpace computes every boundary once with FreeSpaceKernel and shares it between neighbouring cells
 
 		xdiff = end.x - start.x;
 		ydiff = end.y - start.y;
@@ -398,89 +433,91 @@ public class ReachabilityStructure {
 		return result;
 	}
 
-    void enforceMonotonicity(Arrow arrow) {
+    //Returns the arrow with its start and end clipped so only monotone paths remain, or the arrow itself if nothing changed.
+    //If nothing is reachable any more the result is a null arrow.
+    //Arrows are never modified, a clipped arrow is a new one.
+    Arrow enforceMonotonicity(Arrow arrow) {
+        if (arrow.end == null || arrow.start == null || !arrow.start.isParallelTo(arrow.end)) {
+            return arrow;
+        }
+        Point2D.Double startStart = arrow.start.startGraph;
+        Point2D.Double startEnd = arrow.start.endGraph;
+        Point2D.Double endStart = arrow.end.startGraph;
+        Point2D.Double endEnd = arrow.end.endGraph;
         boolean changed = false;
-        if (arrow.end != null && arrow.start != null) {
-            if (arrow.start.isParallelTo(arrow.end)) {
-                //either left to right or bottom to top
-                if (arrow.start.isVertical()) {
-                    //left interval pointing to right interval
-                    if (arrow.start.startGraph.y > arrow.end.startGraph.y) {
-                        arrow.end.startGraph.y = arrow.start.startGraph.y;
-                        changed = true;
-                    }
-                    if (arrow.end.endGraph.y < arrow.start.endGraph.y) {
-                        arrow.start.endGraph.y = arrow.end.endGraph.y;
-                        changed = true;
-                    }
-                } else {
-                    //bottom interval pointing to top interval
-                    if (arrow.start.startGraph.x > arrow.end.startGraph.x) {
-                        arrow.end.startGraph.x = arrow.start.startGraph.x;
-                        changed = true;
-                    }
-                    if (arrow.end.endGraph.x < arrow.start.endGraph.x) {
-                        arrow.start.endGraph.x = arrow.end.endGraph.x;
-                        changed = true;
-                    }
-                }
+        //either left to right or bottom to top
+        if (arrow.start.isVertical()) {
+            //left interval pointing to right interval
+            if (startStart.y > endStart.y) {
+                endStart = new Point2D.Double(endStart.x, startStart.y);
+                changed = true;
+            }
+            if (endEnd.y < startEnd.y) {
+                startEnd = new Point2D.Double(startEnd.x, endEnd.y);
+                changed = true;
+            }
+        } else {
+            //bottom interval pointing to top interval
+            if (startStart.x > endStart.x) {
+                endStart = new Point2D.Double(startStart.x, endStart.y);
+                changed = true;
+            }
+            if (endEnd.x < startEnd.x) {
+                startEnd = new Point2D.Double(endEnd.x, startEnd.y);
+                changed = true;
             }
         }
-        if (changed) {
-            //check to make sure SOMETHING is still reachable, if not arrow = null
-            if (arrow.start.isVertical()) {
-                if (arrow.start.startGraph.y >= arrow.start.endGraph.y ||
-                        arrow.end.startGraph.y >= arrow.end.endGraph.y) {
-                    arrow.start.startGraph = null;
-                    arrow.start.endGraph = null;
-                    arrow.start = null;
-                    arrow.end.startGraph = null;
-                    arrow.end.endGraph = null;
-                    arrow.end = null;
-                    arrow = null;
-                }
-            } else {
-                if (arrow.start.startGraph.x >= arrow.start.endGraph.x ||
-                        arrow.end.startGraph.x >= arrow.end.endGraph.x) {
-                    arrow.start.startGraph = null;
-                    arrow.start.endGraph = null;
-                    arrow.start = null;
-                    arrow.end.startGraph = null;
-                    arrow.end.endGraph = null;
-                    arrow.end = null;
-                    arrow = null;
-                }
+        if (!changed) {
+            return arrow;
+        }
+
+        //check to make sure SOMETHING is still reachable, if not the arrow is null
+        if (arrow.start.isVertical()) {
+            if (startStart.y >= startEnd.y || endStart.y >= endEnd.y) {
+                return new Arrow(null, null, arrow.subArrows);
             }
-            //if we changed the outer arrows, we need to recursively change the subarrows
-            if (arrow != null && arrow.subArrows != null && arrow.subArrows.size() > 0) {
-                for (Arrow sub : arrow.subArrows) {
-                    enforceMonotonicity(sub);
-                }
+        } else {
+            if (startStart.x >= startEnd.x || endStart.x >= endEnd.x) {
+                return new Arrow(null, null, arrow.subArrows);
+            }
+        }
+
+        //if we changed the outer arrows, we need to recursively change the subarrows
+        //subarrows that don't change are shared with the original
+        ArrayList<Arrow> subArrows = arrow.subArrows;
+        if (subArrows != null && subArrows.size() > 0) {
+            subArrows = new ArrayList<Arrow>(arrow.subArrows.size());
+            for (Arrow sub : arrow.subArrows) {
+                subArrows.add(enforceMonotonicity(sub));
             }
         }
+        return new Arrow(new Interval(startStart, startEnd), new Interval(endStart, endEnd), subArrows);
     }
 
-    void mergeCellsIntoColumn(ArrayList<Set<Arrow>> column) {
+    //Folds all cells of a column into one, in a single pass from the top cell down.
+    //The merged block is always the upper cell and the next cell below it the lower one.
+    void mergeCellsIntoColumn(ArrayList<Set<Arrow>> column, FreeSpace freeSpace, int columnIndex) {
 
-        if (column.size() == 1) {
+        if (column.size() <= 1) {
             return;
         }
 
-        Set<Arrow> topCell = column.get(column.size() - 1);
-        Set<Arrow> bottomCell = column.get(column.size() - 2);
-        Set<Arrow> mergedCell = mergeCells(topCell, bottomCell);
-
+        Set<Arrow> mergedCell = column.get(column.size() - 1);
+        for (int row = column.size() - 2; row >= 0; row--) {
+            //arrows can only connect through the boundary the two cells share
+            mergedCell = mergeCells(mergedCell, column.get(row), freeSpace.hasHorizontal(columnIndex, row + 1));
+        }
 
-        //remove constituent cells and add new one
-        column.remove(topCell);
-        column.remove(bottomCell);
+        column.clear();
         column.add(mergedCell);
-
-        //recursively merge
-        mergeCellsIntoColumn(column);
     }
 
     HashSet<Arrow> mergeCells(Set<Arrow> first, Set<Arrow> second) {
+        return mergeCells(first, second, true);
+    }
+
+    //connected is false when the free space between the two cells is closed, then only the originals are kept
+    HashSet<Arrow> mergeCells(Set<Arrow> first, Set<Arrow> second, boolean connected) {
         HashSet<Arrow> mergedCell = new HashSet<Arrow>();
         if (first == null && second == null) {
             return null;
@@ -493,34 +530,50 @@ public class ReachabilityStructure {
             mergedCell.addAll(first);
             return mergedCell;
         }
+        if (!connected) {
+            mergedCell.addAll(first);
+            mergedCell.addAll(second);
+            return mergedCell;
+        }
+        //index the ends of the lower arrows once, so each upper arrow only visits the ones it overlaps
+        //instead of every arrow of the cell below
+        ArrowIndex bottomEnds = null;
+        if (indexedJoins && second.size() >= INDEXED_JOIN_THRESHOLD) {
+            bottomEnds = new ArrowIndex(second);
+        }
+        ArrayList<Arrow> candidates = new ArrayList<Arrow>();
+
         //loop through arrows in adjacent cells and find the ones that connect
         for (Arrow topArrow : first) {
             if (!topArrow.isNull()) {
-                for (Arrow bottomArrow : second) {
+                candidates.clear();
+                if (bottomEnds != null) {
+                    bottomEnds.collect(topArrow.start, candidates);
+                } else {
+                    candidates.addAll(second);
+                }
+                for (Arrow bottomArrow : candidates) {
                     if(!bottomArrow.isNull()) {
                         if(topArrow.start.intersects(bottomArrow.end)) {
                             //merge arrows
                             Interval middle = topArrow.start.intersection(bottomArrow.end);
                             Arrow newArrow = null;
                             if (middle != null) {
-                                //if they connect, we copy the two arrows, modify their connection,
-                                //create a new arrow with the constituents as subarrows, and add that to the mergedcell
-                                //after the mergedcell is created, we can delete the base arrows
-                                Arrow topCopy = new Arrow(topArrow);
-                                topCopy.start = new Interval(middle);
-                                Arrow bottomCopy = new Arrow(bottomArrow);
-                                bottomCopy.end = new Interval(middle);
-
-                                newArrow = new Arrow();
-                                newArrow.subArrows.add(topCopy);
-                                newArrow.subArrows.add(bottomCopy);
-                                newArrow.start = new Interval(bottomCopy.start);
-                                newArrow.end = new Interval(topCopy.end);
+                                //if they connect, the two arrows are cut at their connection and a new arrow is
+                                //created with the two parts as subarrows, which is added to the mergedcell.
+                                //the parts share everything else with the originals, nothing is copied
+                                Arrow topPart = topArrow.withStart(middle);
+                                Arrow bottomPart = bottomArrow.withEnd(middle);
+
+                                ArrayList<Arrow> parts = new ArrayList<Arrow>(2);
+                                parts.add(topPart);
+                                parts.add(bottomPart);
+                                newArrow = new Arrow(bottomPart.start, topPart.end, parts);
 
                                 //if end and middle are parallel, we need to project monotonicity
                                 //monotonicity is already enforced within a single cell
                                 //and enforcemonotonicity knows whether or not start and end are parallel
-                                enforceMonotonicity(newArrow);
+                                newArrow = enforceMonotonicity(newArrow);
                             }
                             //enforceMonotonicity could null out the new arrow
                             if (newArrow != null && !newArrow.isNull()) {
@@ -537,14 +590,19 @@ public class ReachabilityStructure {
         mergedCell.addAll(first);
         mergedCell.addAll(second);
 
+        if (pruner != null) {
+            return pruner.prune(mergedCell);
+        }
         return mergedCell;
     }
 
     ArrayList<Set<Arrow>> mergeTwoColumns(ArrayList<Set<Arrow>> left, ArrayList<Set<Arrow>> right) {
         //columns should only have one cell in them at this point, but many arrows
-        Set<Arrow> leftColumn = new HashSet<Arrow>(left.get(0));
-        Set<Arrow> rightColumn = new HashSet<Arrow>(right.get(0));
-        Set<Arrow> mergedColumn = new HashSet<Arrow>(mergeCells(rightColumn, leftColumn));
+        //a cell without any arrows is null, which mergeCells takes as empty
+        Set<Arrow> leftColumn = left.get(0) != null ? new HashSet<Arrow>(left.get(0)) : null;
+        Set<Arrow> rightColumn = right.get(0) != null ? new HashSet<Arrow>(right.get(0)) : null;
+        Set<Arrow> merged = mergeCells(rightColumn, leftColumn);
+        Set<Arrow> mergedColumn = merged != null ? new HashSet<Arrow>(merged) : new HashSet<Arrow>();
 
         ArrayList<Set<Arrow>> result = new ArrayList<Set<Arrow>>();
         result.add(mergedColumn);
@@ -556,9 +614,13 @@ public class ReachabilityStructure {
         if (startIndex >= originalPolyP.length) {
             return null;
         }
-        ArrayList<Diagonal> diagonals = orderedDiagonalsForPolygon(originalPolyP);
+        if (orderedDiagonals == null) {
+            orderedDiagonals = preparedP.orderedDiagonals();
+        }
+        //trimmed below, so every start point works on its own copy
+        ArrayList<Diagonal> diagonals = new ArrayList<Diagonal>(orderedDiagonals);
 
-        Set<Arrow> column = layers.get(0).arrows.get(startIndex).get(0);
+        Set<Arrow> column = baseLayer.arrows.get(startIndex).get(0);
         DiagonalTree diagonalTree;
 
         boolean validStart = false;
@@ -597,7 +659,7 @@ public class ReachabilityStructure {
         return null;
     }
 
-    ArrayList<Diagonal> trueDiagonalsForPolygon(Point2D.Double[] poly) {
+    static ArrayList<Diagonal> trueDiagonalsForPolygon(Point2D.Double[] poly) {
         int length = poly.length;
         ArrayList<Diagonal> diagonals = new ArrayList<Diagonal>();
 
@@ -645,7 +707,7 @@ public class ReachabilityStructure {
     }
 
     //this is for the polygon on the x-axis (it doubles the length)
-    ArrayList<Diagonal> orderedDiagonalsForPolygon(Point2D.Double[] poly) {
+    static ArrayList<Diagonal> orderedDiagonalsForPolygon(Point2D.Double[] poly) {
         int length = poly.length;
          ArrayList<Diagonal> diagonals = trueDiagonalsForPolygon(poly);
 
@@ -677,10 +739,10 @@ public class ReachabilityStructure {
         if (Math.floor(startPoint.x) > originalPolyP.length) {
             return null;
         }
+        //the diagonal tree is all the state a query has of its own, it is dropped once the query returns.
+        //the base layer is only read and mergedSubtrees keeps at most MERGED_SUBTREE_CACHE_SIZE merges,
+        //so any number of queries can run on one structure
         DiagonalTree diagonalTree = diagonalTreeForPoint(startPoint);
-        this.layers.add(1, new Layer(layers.get(0)));
-
-        //TODO: rework the layers idea. don't really need them now, just need one base layer and create a new top layer for each query
         if (diagonalTree != null) {
             ArrayList<Set<Arrow>> merged = mergeChildren(diagonalTree.root());
             return merged.get(0);
@@ -690,6 +752,16 @@ public class ReachabilityStructure {
     }
 
     ArrayList<Set<Arrow>> mergeChildren(DiagonalTree.DiagonalNode node){
+            //the merged column only depends on the base layer and the diagonals below node
+            String key = null;
+            if (sharedMerges) {
+                key = node.signature();
+                ArrayList<Set<Arrow>> shared = mergedSubtrees.get(key);
+                if (shared != null) {
+                    return shared;
+                }
+            }
+
             //get list of columns
             ArrayList<ArrayList<Set<Arrow>>> columns = new ArrayList<ArrayList<Set<Arrow>>>();
             for (DiagonalTree.DiagonalNode child : node.children) {
@@ -701,10 +773,13 @@ public class ReachabilityStructure {
                 } else {
                     //System.out.println("Return single ");
                     //child.print();
-                    columns.add(layers.get(1).arrows.get(child.data.startIndex));
+                    columns.add(baseLayer.arrows.get(child.data.startIndex));
                 }
             }
             ArrayList<Set<Arrow>> merged = mergeColumns(columns);
+            if (key != null) {
+                mergedSubtrees.put(key, merged);
+            }
             return merged;
     }
 
@@ -722,85 +797,102 @@ public class ReachabilityStructure {
         return finalColumn;
     }
 
+    //Q is triangulated on first use, the triangulation is kept for every shortest path in Q
+    GeodesicOracle geodesicOracle() {
+        if (geodesicOracle == null) {
+            //the oracle isn't shared, its fallback is only safe on one thread, but the triangulation is
+            geodesicOracle = new GeodesicOracle(originalPolyQ, preparedQ.triangles());
+        }
+        return geodesicOracle;
+    }
+
     ArrayList<Set<Arrow>> pruneInvalidIntervalsFromColumn(ArrayList<Set<Arrow>> column, Diagonal diagonal) {
         if (!diagonal.isTrueDiagonal) {
             //don't prune unless the diagonal being inspected is really a diagonal from the polygon
             return column;
         }
-        ArrayList<Set<Arrow>> columnCopy = new ArrayList<Set<Arrow>>(column);
-
-        for (Arrow arrow : columnCopy.get(0)) {
+        Set<Arrow> cell = column.get(0);
+        if (cell == null) {
+            return column;
+        }
+        //the column and its cell can be shared with other start points (see mergedSubtrees), so the arrows are removed
+        //from a copy of the cell, made the first time one has to go
+        Set<Arrow> kept = null;
+        for (Arrow arrow : cell) {
             if (!arrow.isNull() && arrow.start.isVertical() && arrow.end.isVertical()) {
-                Point2D.Double startPoint = arrow.start.getPolygonMidpoint(borderPolyQ);
-                Point2D.Double endPoint = arrow.end.getPolygonMidpoint(borderPolyQ);
-                ShortestPath spCalculator = new ShortestPath(insertPointIntoPolygon(insertPointIntoPolygon(originalPolyQ, startPoint), endPoint), startPoint, endPoint);
-
-                if (spCalculator.getPath() != null && !startPoint.equals(endPoint)) {
-                    //get diagonal path
-                    Point2D.Double[] diagonalPath = {borderPolyP[diagonal.startIndex], borderPolyP[diagonal.endIndex]};
-                    //get shortest path
-                    Point2D.Double[] shortestPath = spCalculator.getPath();
-
-                    //find frechet distance between them
-                    Layer reachability = createBaseLayer(diagonalPath, shortestPath, _epsilon, true);
-
-                    Set<Arrow> finalArrows;
-                    for (ArrayList<Set<Arrow>> c : reachability.arrows) {
-                        mergeCellsIntoColumn(c);
-                    }
-                    finalArrows = mergeColumns(reachability.arrows).get(0);
-
-                    boolean isPath = false;
-                    if (finalArrows != null) {
-                        for (Arrow a : finalArrows) {
-                            if (a.start.contains(new Point2D.Double(0, 0)) && a.end.contains(new Point2D.Double(1, shortestPath.length))) {
-                                  //exists a path from start to end
-                                  isPath = true;
-                                  break;
-                            }
-                        }
-                    }
-
-                    if (!isPath) {
-                        //if frechet distance is too big between diagonal and sp, then we remove the arrow.
-                        column.remove(arrow);
+                if (!followsDiagonal(arrow, diagonal)) {
+                    //if frechet distance is too big between diagonal and sp, then we remove the arrow.
+                    if (kept == null) {
+                        kept = new HashSet<Arrow>(cell);
                     }
+                    kept.remove(arrow);
                 }
             }
         }
-        return column;
+        if (kept == null) {
+            return column;
+        }
+        ArrayList<Set<Arrow>> columnCopy = new ArrayList<Set<Arrow>>(column);
+        columnCopy.set(0, kept);
+        return columnCopy;
     }
 
-    private Point2D.Double[] insertPointIntoPolygon(Point2D.Double[] poly, Point2D.Double point) {
-        //Iterate through all edges
-        for (int i = 0; i < poly.length; i++) {
-            int j = i + 1;
-            if (j >= poly.length) {
-                j = 0;
+    //False if the shortest path in Q between the midpoints of the arrow's start and end is too far from the diagonal.
+    //Many arrows share midpoints, so the answer is cached by the diagonal and the quantized boundary parameters of
+    //the arrow, and the shortest path by the parameters alone.
+    boolean followsDiagonal(Arrow arrow, Diagonal diagonal) {
+        List<Long> pathKey = Arrays.asList(quantize(arrow.start.startGraph.y), quantize(arrow.start.endGraph.y),
+                quantize(arrow.end.startGraph.y), quantize(arrow.end.endGraph.y));
+        //the diagonal is the same in both halves of the doubled P
+        List<Long> checkKey = new ArrayList<Long>(pathKey);
+        checkKey.add((long) (diagonal.startIndex % originalPolyP.length));
+        checkKey.add((long) (diagonal.endIndex % originalPolyP.length));
+        Boolean follows = diagonalChecks.get(checkKey);
+        if (follows != null) {
+            return follows;
+        }
+
+        Point2D.Double startPoint = arrow.start.getPolygonMidpoint(borderPolyQ);
+        Point2D.Double endPoint = arrow.end.getPolygonMidpoint(borderPolyQ);
+        Point2D.Double[] shortestPath = geodesics.get(pathKey);
+        if (shortestPath == null) {
+            //the midpoints lie on the boundary of Q, so the triangulation of Q itself is used, nothing is inserted into it
+            shortestPath = geodesicOracle().shortestPath(startPoint, endPoint);
+            geodesics.put(pathKey, shortestPath != null ? shortestPath : NO_PATH);
+        }
+
+        follows = true;
+        if (shortestPath != null && shortestPath.length > 0 && !startPoint.equals(endPoint)) {
+            //get diagonal path
+            Point2D.Double[] diagonalPath = {borderPolyP[diagonal.startIndex], borderPolyP[diagonal.endIndex]};
+
+            //find frechet distance between them
+            Layer reachability = createBaseLayer(diagonalPath, shortestPath, _epsilon, true);
+
+            Set<Arrow> finalArrows;
+            for (int i = 0; i < reachability.arrows.size(); i++) {
+                mergeCellsIntoColumn(reachability.arrows.get(i), reachability.freeSpace, i);
             }
-            //if distance from point to edge is small, insert point between the vertices making up that edge
-            double denominator = Math.sqrt((poly[j].x - poly[i].x)*(poly[j].x - poly[i].x) + (poly[j].y - poly[i].y)*(poly[j].y - poly[i].y));
-            double numerator = Math.abs((poly[j].x - poly[i].x)*(poly[i].y - point.y) - (poly[i].x - point.x)*(poly[j].y - poly[i].y));
-
-            Point2D.Double[] newPolygon = new Point2D.Double[poly.length + 1];
-            if (getZero(numerator/denominator) == 0) {
-                System.arraycopy(poly, 0, newPolygon, 0, j);
-                newPolygon[j] = point;
-                System.arraycopy(poly, j, newPolygon, j+1, poly.length-j);
-                return newPolygon;
-
+            finalArrows = mergeColumns(reachability.arrows).get(0);
+
+            boolean isPath = false;
+            if (finalArrows != null) {
+                for (Arrow a : finalArrows) {
+                    if (a.start.contains(new Point2D.Double(0, 0)) && a.end.contains(new Point2D.Double(1, shortestPath.length))) {
+                          //exists a path from start to end
+                          isPath = true;
+                          break;
+                    }
+                }
             }
+            follows = isPath;
         }
-        return poly;
+        diagonalChecks.put(checkKey, follows);
+        return follows;
     }
 
-    private double getZero(double x) {
-        double testPositiveZero = 0.00000000001;
-        double testNegativeZero = -0.00000000001;
-        if (x >= testNegativeZero && x <= testPositiveZero) {
-            x = 0;
-        }
-        return x;
+    static long quantize(double parameter) {
+        return Math.round(parameter / BOUNDARY_QUANTUM);
     }
 
 }
@@ -0,0 +1,120 @@
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+public class ReachabilityStructureTest {
+
+    @Test
+    public void testRepeatedQueriesKeepMemoryBounded() throws Exception {
+        //the start points below use three distinct diagonal subtrees of P, more than the cache can hold
+        Random random = new Random(1);
+        Point2D.Double[] polyP = TestPolygons.randomPolygon(random, 9);
+        Point2D.Double[] polyQ = TestPolygons.randomPolygon(random, 5);
+        ReachabilityStructure structure = new ReachabilityStructure(polyP, polyQ, 1);
+        structure.mergedSubtrees = new LruCache<String, ArrayList<Set<Arrow>>>(2);
+        ReachabilityStructure unshared = new ReachabilityStructure(polyP, polyQ, 1);
+        unshared.sharedMerges = false;
+        Layer baseLayer = structure.baseLayer;
+
+        //every point where a path can start on the bottom boundary
+        ArrayList<Point2D.Double> starts = new ArrayList<Point2D.Double>();
+        for (int k = 0; k < polyP.length; k++) {
+            Set<Arrow> cell = baseLayer.arrows.get(k).get(0);
+            if (cell != null) {
+                for (Arrow arrow : cell) {
+                    if (!arrow.isNull() && !arrow.start.isVertical() && arrow.start.startGraph.y == 0) {
+                        starts.add(arrow.start.getMidpoint());
+                    }
+                }
+            }
+        }
+
+        for (int k = 0; k < 500; k++) {
+            Point2D.Double start = starts.get(k % starts.size());
+            Assert.assertEquals(unshared.reachabilityStructureFromPoint(start), structure.reachabilityStructureFromPoint(start));
+            Assert.assertTrue(structure.mergedSubtrees.size() <= 2);
+        }
+        Assert.assertSame(baseLayer, structure.baseLayer);
+        Assert.assertTrue(structure.mergedSubtrees.getEvictions() > 0);
+    }
+
+    @Test
+    public void testFirstReachablePath() throws Exception {
+        ReachabilityStructure structure = new ReachabilityStructure(TestPolygons.square(0), TestPolygons.square(0.1), 10);
+        ArrayList<Point2D.Double[]> paths = structure.possiblePaths();
+        Point2D.Double[] first = structure.getFirstReachablePath();
+
+        Assert.assertTrue(structure.isReachable());
+        Assert.assertTrue(Arrays.equals(paths.get(0), first));
+        Assert.assertSame(first, structure.getFirstReachablePath());
+    }
+
+    @Test
+    public void testIsReachable() throws Exception {
+        ReachabilityStructure structure = new ReachabilityStructure(TestPolygons.square(0), TestPolygons.square(0.1), 10);
+
+        Assert.assertFalse(structure.isReachable(0.01));
+        Assert.assertTrue(structure.isReachable(10));
+        //known from the answers above
+        Assert.assertFalse(structure.isReachable(0.005));
+        Assert.assertTrue(structure.isReachable(20));
+        Assert.assertEquals(4, structure.reachableAt.size());
+    }
+
+    @Test
+    public void testPruneInvalidIntervals() throws Exception {
+        //Q is far from P, so no shortest path in Q stays within epsilon of a diagonal of P
+        ReachabilityStructure structure = new ReachabilityStructure(TestPolygons.square(0), TestPolygons.square(5), 0.5);
+        Diagonal diagonal = new Diagonal(0, 2);
+        diagonal.isTrueDiagonal = true;
+
+        Arrow across = new Arrow(new Interval(new Point2D.Double(0, 0.2), new Point2D.Double(0, 0.4)),
+                new Interval(new Point2D.Double(2, 1.2), new Point2D.Double(2, 1.4)));
+        //only arrows between vertical sides are checked
+        Arrow fromBottom = new Arrow(new Interval(new Point2D.Double(0.2, 0), new Point2D.Double(0.4, 0)),
+                new Interval(new Point2D.Double(2, 1.2), new Point2D.Double(2, 1.4)));
+        Set<Arrow> cell = new HashSet<Arrow>();
+        cell.add(across);
+        cell.add(fromBottom);
+        ArrayList<Set<Arrow>> column = new ArrayList<Set<Arrow>>();
+        column.add(cell);
+
+        ArrayList<Set<Arrow>> pruned = structure.pruneInvalidIntervalsFromColumn(column, diagonal);
+        Assert.assertEquals(1, pruned.get(0).size());
+        Assert.assertFalse(pruned.get(0).contains(across));
+        Assert.assertTrue(pruned.get(0).contains(fromBottom));
+        //the column may be shared, it is left as it was
+        Assert.assertEquals(2, cell.size());
+        Assert.assertSame(cell, column.get(0));
+
+        //the second time the answer comes from the cache
+        structure.pruneInvalidIntervalsFromColumn(column, diagonal);
+        Assert.assertEquals(1, structure.getDiagonalCheckCache().getMisses());
+        Assert.assertEquals(1, structure.getDiagonalCheckCache().getHits());
+        Assert.assertEquals(1, structure.getShortestPathCache().getMisses());
+    }
+
+    @Test
+    public void testBaseLayerOnPool() throws Exception {
+        //every column is built by one task, so splitting them over a pool gives the same arrows as building them in order
+        Random random = new Random(4);
+        Point2D.Double[] polyP = TestPolygons.randomPolygon(random, 7);
+        Point2D.Double[] polyQ = TestPolygons.randomPolygon(random, 9);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (double epsilon : new double[] {0.3, 0.8}) {
+            ReachabilityStructure sequential = new ReachabilityStructure(polyP, polyQ, epsilon, null);
+            ReachabilityStructure parallel = new ReachabilityStructure(polyP, polyQ, epsilon, pool);
+            Assert.assertTrue(Arrays.equals(sequential.baseLayer.freeSpace.vertical, parallel.baseLayer.freeSpace.vertical));
+            Assert.assertTrue(Arrays.equals(sequential.baseLayer.freeSpace.horizontal, parallel.baseLayer.freeSpace.horizontal));
+            Assert.assertEquals(sequential.baseLayer.arrows, parallel.baseLayer.arrows);
+        }
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,33 @@
+import java.awt.geom.Point2D;
+import java.util.Random;
+
+//Polygons shared by the tests
+public class TestPolygons {
+
+    //Unit square with its lower left corner at (offset, offset), counterclockwise
+    static Point2D.Double[] square(double offset) {
+        return new Point2D.Double[] {
+                new Point2D.Double(offset, offset),
+                new Point2D.Double(1 + offset, offset),
+                new Point2D.Double(1 + offset, 1 + offset),
+                new Point2D.Double(offset, 1 + offset)};
+    }
+
+    //Star shaped polygon with its vertices at even angles and random distances from the origin, from 0.8 to 1.2
+    static Point2D.Double[] randomPolygon(Random random, int length) {
+        Point2D.Double[] poly = new Point2D.Double[length];
+        for (int i = 0; i < length; i++) {
+            double angle = 2 * Math.PI * i / length;
+            double radius = 0.8 + 0.4 * random.nextDouble();
+            poly[i] = new Point2D.Double(radius * Math.cos(angle), radius * Math.sin(angle));
+        }
+        return poly;
+    }
+
+    //U shape, open at the top between x = 1 and x = 2
+    static Point2D.Double[] uShape() {
+        return new Point2D.Double[]{
+                new Point2D.Double(0, 0), new Point2D.Double(3, 0), new Point2D.Double(3, 3), new Point2D.Double(2, 3),
+                new Point2D.Double(2, 1), new Point2D.Double(1, 1), new Point2D.Double(1, 3), new Point2D.Double(0, 3)};
+    }
+}
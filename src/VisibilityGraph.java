@@ -0,0 +1,323 @@
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+//Shortest paths inside a simple polygon over its visibility graph.
+//Dijkstra with a priority queue settles one vertex at a time and only tests the visibility of the edges it needs.
+//A visibility test only looks at the polygon edges in the cells of a uniform grid the segment passes through,
+//and whether a segment leaves a vertex into the polygon is decided by the angle at that vertex, so no test walks
+//the whole polygon.
+//Build it once per polygon, then ask for any number of paths. Always world coordinates.
+public class VisibilityGraph {
+    static final double TOLERANCE = 0.00000000001;
+
+    Point2D.Double[] poly;
+    double[] xs;
+    double[] ys;
+    //1 if the vertices run counterclockwise, -1 otherwise
+    double orientation;
+
+    //edge k runs from vertex k to vertex k+1 (mod n), gridEdges[cell] lists the edges whose bounding box touches cell
+    double minX;
+    double minY;
+    double cellWidth;
+    double cellHeight;
+    int gridColumns;
+    int gridRows;
+    int[][] gridEdges;
+
+    //per query: marks the edges already tested so an edge in several cells is only tested once
+    private int[] edgeStamp;
+    private int stamp;
+
+    public VisibilityGraph(Point2D.Double[] poly) {
+        this.poly = poly;
+        int n = poly.length;
+        xs = new double[n];
+        ys = new double[n];
+        FreeSpaceKernel.copyCoordinates(poly, xs, ys);
+
+        double area = 0;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        minX = Double.POSITIVE_INFINITY;
+        minY = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < n; k++) {
+            int next = (k + 1) % n;
+            area += xs[k] * ys[next] - xs[next] * ys[k];
+            minX = Math.min(minX, xs[k]);
+            minY = Math.min(minY, ys[k]);
+            maxX = Math.max(maxX, xs[k]);
+            maxY = Math.max(maxY, ys[k]);
+        }
+        orientation = area >= 0 ? 1 : -1;
+
+        //about one edge per cell
+        int side = Math.max(1, (int) Math.ceil(Math.sqrt(n)));
+        gridColumns = side;
+        gridRows = side;
+        cellWidth = Math.max((maxX - minX) / side, TOLERANCE);
+        cellHeight = Math.max((maxY - minY) / side, TOLERANCE);
+
+        int[] counts = new int[side * side];
+        for (int pass = 0; pass < 2; pass++) {
+            if (pass == 1) {
+                gridEdges = new int[counts.length][];
+                for (int c = 0; c < counts.length; c++) {
+                    gridEdges[c] = new int[counts[c]];
+                    counts[c] = 0;
+                }
+            }
+            for (int k = 0; k < n; k++) {
+                int next = (k + 1) % n;
+                int column0 = column(Math.min(xs[k], xs[next]));
+                int column1 = column(Math.max(xs[k], xs[next]));
+                int row0 = row(Math.min(ys[k], ys[next]));
+                int row1 = row(Math.max(ys[k], ys[next]));
+                for (int c = column0; c <= column1; c++) {
+                    for (int r = row0; r <= row1; r++) {
+                        int cell = r * gridColumns + c;
+                        if (pass == 1) {
+                            gridEdges[cell][counts[cell]] = k;
+                        }
+                        counts[cell]++;
+                    }
+                }
+            }
+        }
+        edgeStamp = new int[n];
+    }
+
+    //Shortest path from start to end, both on the boundary or inside the polygon, null if there is none.
+    //Starts with start and ends with end, the vertices in between are polygon vertices.
+    public Point2D.Double[] shortestPath(Point2D.Double start, Point2D.Double end) {
+        int n = poly.length;
+        int startVertex = vertexAt(start);
+        int endVertex = vertexAt(end);
+        int startEdge = startVertex < 0 ? edgeAt(start) : -1;
+        int endEdge = endVertex < 0 ? edgeAt(end) : -1;
+        if (visible(start.x, start.y, startVertex, startEdge, end.x, end.y, endVertex, endEdge)) {
+            return new Point2D.Double[]{start, end};
+        }
+
+        //nodes 0 .. n-1 are the vertices, n is start and n + 1 is end
+        final double[] distance = new double[n + 2];
+        int[] previous = new int[n + 2];
+        boolean[] settled = new boolean[n + 2];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        Arrays.fill(previous, -1);
+        double[] nodeX = Arrays.copyOf(xs, n + 2);
+        double[] nodeY = Arrays.copyOf(ys, n + 2);
+        int[] nodeVertex = new int[n + 2];
+        int[] nodeEdge = new int[n + 2];
+        for (int k = 0; k < n; k++) {
+            nodeVertex[k] = k;
+            nodeEdge[k] = -1;
+        }
+        nodeX[n] = start.x;
+        nodeY[n] = start.y;
+        nodeVertex[n] = startVertex;
+        nodeEdge[n] = startEdge;
+        nodeX[n + 1] = end.x;
+        nodeY[n + 1] = end.y;
+        nodeVertex[n + 1] = endVertex;
+        nodeEdge[n + 1] = endEdge;
+
+        PriorityQueue<QueueEntry> queue = new PriorityQueue<QueueEntry>();
+        distance[n] = 0;
+        queue.add(new QueueEntry(n, 0));
+        while (!queue.isEmpty()) {
+            QueueEntry entry = queue.poll();
+            int u = entry.node;
+            if (settled[u]) {
+                continue;
+            }
+            settled[u] = true;
+            if (u == n + 1) {
+                break;
+            }
+            for (int v = 0; v < n + 2; v++) {
+                if (settled[v] || v == n) {
+                    continue;
+                }
+                double length = Math.hypot(nodeX[v] - nodeX[u], nodeY[v] - nodeY[u]);
+                //only worth the visibility test if it would be an improvement
+                if (distance[u] + length < distance[v] && visible(nodeX[u], nodeY[u], nodeVertex[u], nodeEdge[u], nodeX[v], nodeY[v], nodeVertex[v], nodeEdge[v])) {
+                    distance[v] = distance[u] + length;
+                    previous[v] = u;
+                    queue.add(new QueueEntry(v, distance[v]));
+                }
+            }
+        }
+        if (!settled[n + 1]) {
+            return null;
+        }
+
+        int count = 0;
+        for (int node = n + 1; node != -1; node = previous[node]) {
+            count++;
+        }
+        Point2D.Double[] path = new Point2D.Double[count];
+        for (int node = n + 1; node != -1; node = previous[node]) {
+            path[--count] = node == n ? start : node == n + 1 ? end : new Point2D.Double(xs[node], ys[node]);
+        }
+        return path;
+    }
+
+    //Index of the polygon vertex at point, -1 if it is not a vertex
+    int vertexAt(Point2D.Double point) {
+        for (int k = 0; k < poly.length; k++) {
+            if (Math.abs(xs[k] - point.x) <= TOLERANCE && Math.abs(ys[k] - point.y) <= TOLERANCE) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    //Index of the polygon edge point lies on, -1 if it is not on the boundary
+    int edgeAt(Point2D.Double point) {
+        for (int k = 0; k < poly.length; k++) {
+            int next = (k + 1) % poly.length;
+            double edgeX = xs[next] - xs[k];
+            double edgeY = ys[next] - ys[k];
+            double edgeLength = Math.hypot(edgeX, edgeY);
+            if (edgeLength > 0 && onOpenSegment(xs[k], ys[k], edgeX, edgeY, edgeLength, point.x, point.y)) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    //True if the segment from (sx, sy) to (ex, ey) stays inside the closed polygon.
+    //sVertex and eVertex are the vertex indices of the two ends, -1 for other points.
+    //sEdge and eEdge are the edges the ends lie on if they are not vertices, -1 for points inside.
+    //A segment running through a third vertex counts as not visible: the path over that vertex is just as long.
+    boolean visible(double sx, double sy, int sVertex, int sEdge, double ex, double ey, int eVertex, int eEdge) {
+        int n = poly.length;
+        if (sVertex >= 0 && eVertex >= 0) {
+            if (sVertex == eVertex) {
+                return true;
+            }
+            int difference = Math.abs(sVertex - eVertex);
+            if (difference == 1 || difference == n - 1) {
+                return true;
+            }
+        }
+        double dx = ex - sx;
+        double dy = ey - sy;
+        if (!leavesInward(sx, sy, sVertex, sEdge, dx, dy) || !leavesInward(ex, ey, eVertex, eEdge, -dx, -dy)) {
+            return false;
+        }
+
+        double length = Math.hypot(dx, dy);
+        stamp++;
+        int column0 = column(Math.min(sx, ex));
+        int column1 = column(Math.max(sx, ex));
+        for (int c = column0; c <= column1; c++) {
+            //rows the segment passes through within this column
+            double left = Math.max(minX + c * cellWidth, Math.min(sx, ex));
+            double right = Math.min(minX + (c + 1) * cellWidth, Math.max(sx, ex));
+            double yLeft = dx == 0 ? sy : sy + dy * (left - sx) / dx;
+            double yRight = dx == 0 ? ey : sy + dy * (right - sx) / dx;
+            //one row of margin on either side, rounding must not lose an edge
+            int row0 = Math.max(0, row(Math.min(yLeft, yRight)) - 1);
+            int row1 = Math.min(gridRows - 1, row(Math.max(yLeft, yRight)) + 1);
+            for (int r = row0; r <= row1; r++) {
+                for (int k : gridEdges[r * gridColumns + c]) {
+                    if (edgeStamp[k] == stamp) {
+                        continue;
+                    }
+                    edgeStamp[k] = stamp;
+                    int next = (k + 1) % n;
+                    if (crosses(sx, sy, ex, ey, xs[k], ys[k], xs[next], ys[next])) {
+                        return false;
+                    }
+                    if (k != sVertex && k != eVertex && onOpenSegment(sx, sy, dx, dy, length, xs[k], ys[k])) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    //True if a segment leaving (x, y) in direction (dx, dy) starts into the polygon.
+    //At a vertex the direction has to lie within the interior angle, on an edge on the interior side of it.
+    private boolean leavesInward(double x, double y, int vertex, int edge, double dx, double dy) {
+        int n = poly.length;
+        if (vertex >= 0) {
+            int previous = (vertex + n - 1) % n;
+            int next = (vertex + 1) % n;
+            //for a counterclockwise polygon the interior runs counterclockwise from next to previous
+            double toNextX = xs[next] - x;
+            double toNextY = ys[next] - y;
+            double toPreviousX = xs[previous] - x;
+            double toPreviousY = ys[previous] - y;
+            if (orientation < 0) {
+                double swapX = toNextX;
+                double swapY = toNextY;
+                toNextX = toPreviousX;
+                toNextY = toPreviousY;
+                toPreviousX = swapX;
+                toPreviousY = swapY;
+            }
+            boolean convex = cross(toNextX, toNextY, toPreviousX, toPreviousY) >= 0;
+            if (convex) {
+                return cross(toNextX, toNextY, dx, dy) >= -TOLERANCE && cross(dx, dy, toPreviousX, toPreviousY) >= -TOLERANCE;
+            }
+            //reflex: inside unless strictly within the outer angle
+            return !(cross(toPreviousX, toPreviousY, dx, dy) > TOLERANCE && cross(dx, dy, toNextX, toNextY) > TOLERANCE);
+        }
+        if (edge >= 0) {
+            int next = (edge + 1) % n;
+            return orientation * cross(xs[next] - xs[edge], ys[next] - ys[edge], dx, dy) >= -TOLERANCE;
+        }
+        //not on the boundary, nothing to check here
+        return true;
+    }
+
+    //Proper crossing: each segment strictly separates the ends of the other
+    private static boolean crosses(double ax, double ay, double bx, double by, double cx, double cy, double dx, double dy) {
+        double c1 = cross(bx - ax, by - ay, cx - ax, cy - ay);
+        double c2 = cross(bx - ax, by - ay, dx - ax, dy - ay);
+        double c3 = cross(dx - cx, dy - cy, ax - cx, ay - cy);
+        double c4 = cross(dx - cx, dy - cy, bx - cx, by - cy);
+        return ((c1 > TOLERANCE && c2 < -TOLERANCE) || (c1 < -TOLERANCE && c2 > TOLERANCE)) &&
+                ((c3 > TOLERANCE && c4 < -TOLERANCE) || (c3 < -TOLERANCE && c4 > TOLERANCE));
+    }
+
+    //True if (px, py) lies on the segment from (sx, sy) along (dx, dy), not at either end
+    private static boolean onOpenSegment(double sx, double sy, double dx, double dy, double length, double px, double py) {
+        if (Math.abs(cross(dx, dy, px - sx, py - sy)) > TOLERANCE * Math.max(1, length)) {
+            return false;
+        }
+        double along = ((px - sx) * dx + (py - sy) * dy) / length;
+        return along > TOLERANCE && along < length - TOLERANCE;
+    }
+
+    private static double cross(double ax, double ay, double bx, double by) {
+        return ax * by - ay * bx;
+    }
+
+    private int column(double x) {
+        return Math.min(gridColumns - 1, Math.max(0, (int) Math.floor((x - minX) / cellWidth)));
+    }
+
+    private int row(double y) {
+        return Math.min(gridRows - 1, Math.max(0, (int) Math.floor((y - minY) / cellHeight)));
+    }
+
+    private static class QueueEntry implements Comparable<QueueEntry> {
+        int node;
+        double distance;
+
+        QueueEntry(int node, double distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+
+        public int compareTo(QueueEntry other) {
+            return Double.compare(distance, other.distance);
+        }
+    }
+}
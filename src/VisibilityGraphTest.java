@@ -0,0 +1,51 @@
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+
+public class VisibilityGraphTest {
+
+    private Point2D.Double[] reversed(Point2D.Double[] poly) {
+        Point2D.Double[] result = new Point2D.Double[poly.length];
+        for (int k = 0; k < poly.length; k++) {
+            result[k] = poly[poly.length - 1 - k];
+        }
+        return result;
+    }
+
+    @Test
+    public void testAroundTheNotch() throws Exception {
+        Point2D.Double start = new Point2D.Double(0, 2.5);
+        Point2D.Double end = new Point2D.Double(3, 2.5);
+        Point2D.Double[] expected = {start, new Point2D.Double(1, 1), new Point2D.Double(2, 1), end};
+
+        //either orientation
+        Point2D.Double[] path = new VisibilityGraph(TestPolygons.uShape()).shortestPath(start, end);
+        Assert.assertEquals(4, path.length);
+        for (int k = 0; k < path.length; k++) {
+            Assert.assertEquals(expected[k], path[k]);
+        }
+        Point2D.Double[] reversedPath = new VisibilityGraph(reversed(TestPolygons.uShape())).shortestPath(start, end);
+        Assert.assertEquals(4, reversedPath.length);
+    }
+
+    @Test
+    public void testStraightLine() throws Exception {
+        VisibilityGraph graph = new VisibilityGraph(TestPolygons.uShape());
+        Point2D.Double[] path = graph.shortestPath(new Point2D.Double(0, 0.5), new Point2D.Double(3, 0.5));
+        Assert.assertEquals(2, path.length);
+
+        //along an edge, and between two vertices
+        Assert.assertEquals(2, graph.shortestPath(new Point2D.Double(0, 0), new Point2D.Double(3, 0)).length);
+        Assert.assertEquals(2, graph.shortestPath(new Point2D.Double(0, 0), new Point2D.Double(2, 1)).length);
+    }
+
+    @Test
+    public void testVertexToVertex() throws Exception {
+        //from one arm of the U to the other
+        Point2D.Double[] path = new VisibilityGraph(TestPolygons.uShape()).shortestPath(new Point2D.Double(0, 3), new Point2D.Double(3, 3));
+        Assert.assertEquals(4, path.length);
+        Assert.assertEquals(new Point2D.Double(1, 1), path[1]);
+        Assert.assertEquals(new Point2D.Double(2, 1), path[2]);
+    }
+}